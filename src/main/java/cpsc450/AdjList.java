@@ -8,6 +8,7 @@
 package cpsc450;
 
 import java.util.*;
+import java.util.function.IntConsumer;
 
 /**
  * Basic adjacency list implementation of the Graph interface.
@@ -165,6 +166,65 @@ public class AdjList implements Graph {
          return 2; // Return infinity if no such edge exists
      }
 
+    /**
+     * Get the number of outgoing edges from a given vertex.
+     */
+    @Override
+    public int outDegree(int x) {
+        return isValidVertex(x) ? outEdges.get(x).size() : 0;
+    }
+
+    /**
+     * Walk the outgoing edges of a given vertex without copying them.
+     */
+    @Override
+    public void forEachOut(int x, IntConsumer action) {
+        if (isValidVertex(x)) {
+            for (int y : outEdges.get(x)) {
+                action.accept(y);
+            }
+        }
+    }
+
+    /**
+     * Returns a cursor that walks the stored out edge sets directly.
+     */
+    @Override
+    public NeighborCursor outCursor() {
+        return new NeighborCursor() {
+            private Iterator<Integer> iterator = Collections.emptyIterator();
+
+            @Override
+            public NeighborCursor reset(int x) {
+                iterator = isValidVertex(x) ? outEdges.get(x).iterator() : Collections.emptyIterator();
+                return this;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public int next() {
+                return iterator.next();
+            }
+        };
+    }
+
+    /**
+     * Copy the weights of all edges from x into dst, matching weight(x, y).
+     */
+    @Override
+    public void copyWeightRow(int x, double[] dst) {
+        Arrays.fill(dst, 0, vertexCount, 2);
+        if (isValidVertex(x)) {
+            for (Map.Entry<Integer, Double> entry : edgeWeights.get(x).entrySet()) {
+                dst[entry.getKey()] = entry.getValue();
+            }
+        }
+    }
+
      /**
      * Returns the number of vertices in the graph.
      */
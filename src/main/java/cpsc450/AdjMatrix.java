@@ -8,18 +8,27 @@
 package cpsc450;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.IntConsumer;
 
 /**
  * Adjacency Matrix implementation of the Graph interface.
+ *
+ * Besides the weights, every row and every column of the matrix is kept as
+ * a bitset of long words, so membership tests, degrees and neighbour
+ * enumeration work 64 vertices at a time instead of comparing weights.
  */
 public class AdjMatrix implements Graph {
 
     private int vertexCount; // total number of vertices
     private int edgeCount;   // running count of edges
     private double[] matrix; // flattened 2D array for edge weights
+    private int words;       // longs per bitset row
+    private long[] rowBits;  // bit y of row x is set if there is an edge from x to y
+    private long[] colBits;  // bit x of column y is set if there is an edge from x to y
 
     /**
      * Create an adjacency matrix (graph) given a specific (fixed) number of vertices.
@@ -33,6 +42,9 @@ public class AdjMatrix implements Graph {
         this.vertexCount = vertices;
         this.matrix = new double[vertexCount * vertexCount];
         this.edgeCount = 0;
+        this.words = (vertexCount + Long.SIZE - 1) / Long.SIZE;
+        this.rowBits = new long[vertexCount * words];
+        this.colBits = new long[vertexCount * words];
 
         // Initialize all weights to Double.POSITIVE_INFINITY (no edge)
         for (int i = 0; i < matrix.length; i++) {
@@ -50,18 +62,22 @@ public class AdjMatrix implements Graph {
 
     /**
      * Add an edge from vertex x to vertex y with a specific weight.
+     * Weights that are not positive and finite are ignored, since an
+     * infinite weight is how the matrix marks a missing edge.
      * 
      * @param x      The source vertex.
      * @param y      The destination vertex.
      * @param weight The weight of the edge.
      */
     public void addEdge(int x, int y, double weight) {
-        if (isValidVertex(x) && isValidVertex(y) && weight > 0) {
+        if (isValidVertex(x) && isValidVertex(y) && weight > 0 && weight < Double.POSITIVE_INFINITY) {
             int index = x * vertexCount + y;
     
-            // If the weight is already positive infinity, increment edgeCount (it's a new edge)
-            if (matrix[index] == Double.POSITIVE_INFINITY) {
+            // If the edge bit is not set yet, increment edgeCount (it's a new edge)
+            if (!hasEdge(x, y)) {
                 edgeCount++;
+                rowBits[x * words + (y >>> 6)] |= 1L << y;
+                colBits[y * words + (x >>> 6)] |= 1L << x;
             }
     
             // Set the edge weight
@@ -75,10 +91,11 @@ public class AdjMatrix implements Graph {
     @Override
     public void removeEdge(int x, int y) {
         if (isValidVertex(x) && isValidVertex(y)) {
-            int index = x * vertexCount + y;
-            if (matrix[index] != Double.POSITIVE_INFINITY) {
-                matrix[index] = Double.POSITIVE_INFINITY;
+            if (hasEdge(x, y)) {
+                matrix[x * vertexCount + y] = Double.POSITIVE_INFINITY;
                 edgeCount--;
+                rowBits[x * words + (y >>> 6)] &= ~(1L << y);
+                colBits[y * words + (x >>> 6)] &= ~(1L << x);
             }
         }
     }
@@ -90,12 +107,7 @@ public class AdjMatrix implements Graph {
     public Set<Integer> out(int x) {
         Set<Integer> outgoing = new HashSet<>();
         if (isValidVertex(x)) {
-            int rowStartIndex = x * vertexCount;
-            for (int y = 0; y < vertexCount; y++) {
-                if (matrix[rowStartIndex + y] != Double.POSITIVE_INFINITY) {
-                    outgoing.add(y);
-                }
-            }
+            collect(rowBits, x * words, outgoing);
         }
         return outgoing;
     }
@@ -107,11 +119,7 @@ public class AdjMatrix implements Graph {
     public Set<Integer> in(int x) {
         Set<Integer> incoming = new HashSet<>();
         if (isValidVertex(x)) {
-            for (int y = 0; y < vertexCount; y++) {
-                if (matrix[y * vertexCount + x] != Double.POSITIVE_INFINITY) {
-                    incoming.add(y);
-                }
-            }
+            collect(colBits, x * words, incoming);
         }
         return incoming;
     }
@@ -123,8 +131,14 @@ public class AdjMatrix implements Graph {
     public Set<Integer> adj(int x) {
         Set<Integer> adjacent = new HashSet<>();
         if (isValidVertex(x)) {
-            adjacent.addAll(out(x));
-            adjacent.addAll(in(x));
+            int start = x * words;
+            for (int w = 0; w < words; w++) {
+                long bits = rowBits[start + w] | colBits[start + w];
+                while (bits != 0) {
+                    adjacent.add((w << 6) + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
         }
         return adjacent;
     }
@@ -134,7 +148,7 @@ public class AdjMatrix implements Graph {
      */
     @Override
     public boolean hasEdge(int x, int y) {
-        return isValidVertex(x) && isValidVertex(y) && matrix[x * vertexCount + y] != Double.POSITIVE_INFINITY;
+        return isValidVertex(x) && isValidVertex(y) && (rowBits[x * words + (y >>> 6)] & (1L << y)) != 0;
     }
 
     /**
@@ -179,13 +193,103 @@ public class AdjMatrix implements Graph {
     public List<Edge> getAllEdges() {
         List<Edge> edges = new ArrayList<>();
         for (int x = 0; x < vertexCount; x++) {
-            for (int y = 0; y < vertexCount; y++) {
-                if (matrix[x * vertexCount + y] != Double.POSITIVE_INFINITY) {
-                    edges.add(new Edge(x, y, y));
+            final int source = x;
+            forEachOut(x, y -> edges.add(new Edge(source, y, y)));
+        }
+        return edges;
+    }
+
+    /**
+     * Get the number of outgoing edges from a given vertex.
+     */
+    @Override
+    public int outDegree(int x) {
+        int degree = 0;
+        if (isValidVertex(x)) {
+            int start = x * words;
+            for (int w = 0; w < words; w++) {
+                degree += Long.bitCount(rowBits[start + w]);
+            }
+        }
+        return degree;
+    }
+
+    /**
+     * Walk the outgoing edges of a given vertex by scanning its row bitset.
+     */
+    @Override
+    public void forEachOut(int x, IntConsumer action) {
+        if (isValidVertex(x)) {
+            int start = x * words;
+            for (int w = 0; w < words; w++) {
+                long bits = rowBits[start + w];
+                while (bits != 0) {
+                    action.accept((w << 6) + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
                 }
             }
         }
-        return edges;
+    }
+
+    /**
+     * Returns a cursor that scans the row bitsets one word at a time.
+     */
+    @Override
+    public NeighborCursor outCursor() {
+        return new NeighborCursor() {
+            private int start; // first word of the row
+            private int word;  // index of the current word within the row
+            private long bits; // unvisited edges of the current word
+
+            @Override
+            public NeighborCursor reset(int x) {
+                start = isValidVertex(x) ? x * words : 0;
+                word = isValidVertex(x) ? 0 : words;
+                bits = word < words ? rowBits[start] : 0;
+                return this;
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (bits == 0 && word + 1 < words) {
+                    bits = rowBits[start + ++word];
+                }
+                return bits != 0;
+            }
+
+            @Override
+            public int next() {
+                hasNext();
+                int y = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                return y;
+            }
+        };
+    }
+
+    /**
+     * Copy the weights of all edges from x into dst with a single array copy.
+     */
+    @Override
+    public void copyWeightRow(int x, double[] dst) {
+        if (isValidVertex(x)) {
+            System.arraycopy(matrix, x * vertexCount, dst, 0, vertexCount);
+        } else {
+            Arrays.fill(dst, 0, vertexCount, Double.POSITIVE_INFINITY);
+        }
+    }
+
+    /**
+     * Adds the vertices of the bitset starting at the given word to a set.
+     */
+    private void collect(long[] bitsets, int start, Set<Integer> vertices) {
+        for (int w = 0; w < words; w++) {
+            long bits = bitsets[start + w];
+            while (bits != 0) {
+                vertices.add((w << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
     }
 
     /**
@@ -214,16 +318,17 @@ public class AdjMatrix implements Graph {
             throw new IllegalArgumentException("Invalid node index");
         }
         
-        List<Integer> neighborsList = new ArrayList<>();
-        
-        // Look for edges in the row corresponding to the current node
-        for (int i = 0; i < vertexCount; i++) {
-            if (matrix[currentNode * vertexCount + i] != Double.POSITIVE_INFINITY) {
-                neighborsList.add(i);
+        // Enumerate the row bitset of the current node
+        int[] neighbors = new int[outDegree(currentNode)];
+        int count = 0;
+        int start = currentNode * words;
+        for (int w = 0; w < words; w++) {
+            long bits = rowBits[start + w];
+            while (bits != 0) {
+                neighbors[count++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
             }
         }
-        
-        // Convert the list to an array and return
-        return neighborsList.stream().mapToInt(i -> i).toArray();
+        return neighbors;
     }
 }
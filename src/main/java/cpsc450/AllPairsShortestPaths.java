@@ -0,0 +1,207 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the full metric closure of a graph into a DistanceMatrix.
+ *
+ * Dense graphs use a cache-blocked Floyd-Warshall. For each diagonal block
+ * k, the block itself is updated first, then every block in row k and
+ * column k in parallel, then all remaining blocks in parallel. Each block
+ * update touches three tiles of BLOCK x BLOCK distances, which stay in
+ * cache. Sparse graphs run Dijkstra from every source in parallel instead.
+ * Either way the result is written straight into the rows of the returned
+ * matrix, which the solvers then use as their weight cache.
+ */
+public class AllPairsShortestPaths {
+
+    static final int BLOCK = 64;                 // Side of a Floyd-Warshall tile
+    static final int SOURCE_GRAIN = 8;           // Dijkstra sources per task
+    static final double DENSE_THRESHOLD = 0.25;  // Edge density above which Floyd-Warshall is used
+
+    private final Graph graph;
+
+    /**
+     * Constructor for the AllPairsShortestPaths class
+     * @param graph The graph whose shortest paths are computed
+     */
+    public AllPairsShortestPaths(Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Computes all shortest paths on the common fork-join pool.
+     * @return The distance matrix
+     */
+    public DistanceMatrix run() {
+        return run(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes all shortest paths, choosing blocked Floyd-Warshall for
+     * dense graphs and per-source Dijkstra for sparse ones.
+     * @param pool The pool to run on
+     * @return The distance matrix
+     */
+    public DistanceMatrix run(ForkJoinPool pool) {
+        int n = graph.vertices();
+        double density = n > 1 ? (double) graph.edges() / ((double) n * (n - 1)) : 1;
+        return density >= DENSE_THRESHOLD ? runFloydWarshall(pool) : runDijkstra(pool);
+    }
+
+    /**
+     * Computes all shortest paths with blocked Floyd-Warshall. Negative
+     * edges are allowed, but negative cycles are not.
+     * @param pool The pool to run on
+     * @return The distance matrix
+     * @throws GraphException if the graph has a negative cycle
+     */
+    public DistanceMatrix runFloydWarshall(ForkJoinPool pool) {
+        int n = graph.vertices();
+        double[][] d = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            graph.copyWeightRow(i, d[i]);
+            d[i][i] = 0;
+        }
+
+        pool.invoke(new FloydWarshallTask(d));
+
+        for (int i = 0; i < n; i++) {
+            if (d[i][i] < 0) {
+                throw new GraphException("Graph has a negative cycle through vertex " + i);
+            }
+            d[i][i] = Double.POSITIVE_INFINITY; // No self edges in the closure
+        }
+        return new DistanceMatrix(d);
+    }
+
+    /**
+     * Computes all shortest paths with one Dijkstra per source.
+     * @param pool The pool to run on
+     * @return The distance matrix
+     * @throws GraphException if an edge has a negative weight
+     */
+    public DistanceMatrix runDijkstra(ForkJoinPool pool) {
+        MetricClosure closure = new MetricClosure(graph);
+        double[][] d = new double[graph.vertices()][];
+        pool.invoke(new SourcesTask(closure, d, 0, d.length));
+        return new DistanceMatrix(d);
+    }
+
+    /**
+     * Runs the blocked Floyd-Warshall phases for every diagonal block.
+     */
+    private static class FloydWarshallTask extends RecursiveAction {
+        private final double[][] d;
+
+        FloydWarshallTask(double[][] d) {
+            this.d = d;
+        }
+
+        @Override
+        protected void compute() {
+            int blocks = (d.length + BLOCK - 1) / BLOCK;
+            for (int k = 0; k < blocks; k++) {
+                new BlockTask(d, k, k, k).compute();
+
+                List<BlockTask> cross = new ArrayList<>();
+                for (int b = 0; b < blocks; b++) {
+                    if (b != k) {
+                        cross.add(new BlockTask(d, k, b, k));
+                        cross.add(new BlockTask(d, b, k, k));
+                    }
+                }
+                invokeAll(cross);
+
+                List<BlockTask> rest = new ArrayList<>();
+                for (int i = 0; i < blocks; i++) {
+                    for (int j = 0; j < blocks; j++) {
+                        if (i != k && j != k) {
+                            rest.add(new BlockTask(d, i, j, k));
+                        }
+                    }
+                }
+                invokeAll(rest);
+            }
+        }
+    }
+
+    /**
+     * Relaxes the tile (bi, bj) through the vertices of block k.
+     */
+    private static class BlockTask extends RecursiveAction {
+        private final double[][] d;
+        private final int bi, bj, bk;
+
+        BlockTask(double[][] d, int bi, int bj, int bk) {
+            this.d = d;
+            this.bi = bi;
+            this.bj = bj;
+            this.bk = bk;
+        }
+
+        @Override
+        protected void compute() {
+            int n = d.length;
+            int kEnd = Math.min(n, (bk + 1) * BLOCK);
+            int iEnd = Math.min(n, (bi + 1) * BLOCK);
+            int jStart = bj * BLOCK;
+            int jEnd = Math.min(n, jStart + BLOCK);
+            for (int k = bk * BLOCK; k < kEnd; k++) {
+                double[] rowK = d[k];
+                for (int i = bi * BLOCK; i < iEnd; i++) {
+                    double[] rowI = d[i];
+                    double dik = rowI[k];
+                    if (dik == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    for (int j = jStart; j < jEnd; j++) {
+                        double through = dik + rowK[j];
+                        if (through < rowI[j]) {
+                            rowI[j] = through;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the Dijkstra rows of a range of sources, splitting the
+     * range in half until it is small.
+     */
+    private static class SourcesTask extends RecursiveAction {
+        private final MetricClosure closure;
+        private final double[][] d;
+        private final int from, to;
+
+        SourcesTask(MetricClosure closure, double[][] d, int from, int to) {
+            this.closure = closure;
+            this.d = d;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SOURCE_GRAIN) {
+                for (int x = from; x < to; x++) {
+                    d[x] = closure.computeRow(x);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SourcesTask(closure, d, from, mid), new SourcesTask(closure, d, mid, to));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures heap allocation and GC time, in total and per named phase.
+ *
+ * Allocation is read from the per-thread counters of the HotSpot
+ * ThreadMXBean (com.sun.management.ThreadMXBean), which count the bytes
+ * each thread has allocated on the heap. GC time is the sum of the
+ * collection times of all collectors. GC is process-wide, so a phase is
+ * charged for every collection that ran while it was active. On JVMs
+ * without allocation counters the byte counts stay at zero.
+ *
+ * Phases are entered and left on the thread doing the work and do not
+ * nest: entering a phase leaves the current one.
+ */
+public class AllocationProfiler {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean HOTSPOT_THREADS = hotspotThreads();
+
+    private final Map<String, long[]> phases = new LinkedHashMap<>(); // {bytes, nanos, gc ms, count} per phase
+    private String current;
+    private long startBytes;
+    private long startNanos;
+    private long startGc;
+
+    /**
+     * Returns true if this JVM counts allocated bytes per thread.
+     */
+    public static boolean isSupported() {
+        return HOTSPOT_THREADS != null;
+    }
+
+    /**
+     * Returns the bytes the current thread has allocated so far, or 0 if
+     * allocation counters are not supported.
+     */
+    public static long currentThreadAllocatedBytes() {
+        return HOTSPOT_THREADS == null ? 0 : HOTSPOT_THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Returns the bytes allocated so far by all live threads, or 0 if
+     * allocation counters are not supported. Use this around work that
+     * runs on a pool; threads that have ended are no longer counted.
+     */
+    public static long allThreadsAllocatedBytes() {
+        if (HOTSPOT_THREADS == null) {
+            return 0;
+        }
+        long total = 0;
+        for (long bytes : HOTSPOT_THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the total time spent in garbage collection so far, in ms.
+     */
+    public static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Starts charging the current thread's allocation to a phase, leaving
+     * the current phase first.
+     * @param phase The name of the phase
+     */
+    public void enter(String phase) {
+        exit();
+        current = phase;
+        startGc = gcMillis();
+        startNanos = System.nanoTime();
+        startBytes = currentThreadAllocatedBytes();
+    }
+
+    /**
+     * Leaves the current phase, if any.
+     */
+    public void exit() {
+        if (current == null) {
+            return;
+        }
+        long bytes = currentThreadAllocatedBytes() - startBytes;
+        long nanos = System.nanoTime() - startNanos;
+        long gc = gcMillis() - startGc;
+        long[] totals = phases.computeIfAbsent(current, k -> new long[4]);
+        totals[0] += bytes;
+        totals[1] += nanos;
+        totals[2] += gc;
+        totals[3]++;
+        current = null;
+    }
+
+    /**
+     * Adds the totals of another profiler to this one.
+     */
+    public void add(AllocationProfiler other) {
+        for (Map.Entry<String, long[]> e : other.phases.entrySet()) {
+            long[] totals = phases.computeIfAbsent(e.getKey(), k -> new long[4]);
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += e.getValue()[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the names of the phases seen so far, in order of first entry.
+     */
+    public Iterable<String> phases() {
+        return phases.keySet();
+    }
+
+    /**
+     * Returns the bytes allocated in a phase.
+     */
+    public long bytes(String phase) {
+        return totals(phase)[0];
+    }
+
+    /**
+     * Returns the time spent in a phase, in ms.
+     */
+    public double millis(String phase) {
+        return totals(phase)[1] / 1e6;
+    }
+
+    /**
+     * Returns the GC time while a phase was active, in ms.
+     */
+    public long gcMillis(String phase) {
+        return totals(phase)[2];
+    }
+
+    /**
+     * Returns the number of times a phase was entered.
+     */
+    public long count(String phase) {
+        return totals(phase)[3];
+    }
+
+    private long[] totals(String phase) {
+        long[] totals = phases.get(phase);
+        return totals == null ? new long[4] : totals;
+    }
+
+    private static com.sun.management.ThreadMXBean hotspotThreads() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) THREADS;
+            if (hotspot.isThreadAllocatedMemorySupported()) {
+                hotspot.setThreadAllocatedMemoryEnabled(true);
+                return hotspot;
+            }
+        }
+        return null;
+    }
+}
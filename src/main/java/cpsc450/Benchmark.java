@@ -0,0 +1,604 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.jfree.data.xy.XYSeries;
+
+/**
+ * Macro benchmark runner for the TSP solvers.
+ *
+ * Each configuration (instance, solver, thread count) is run a number of
+ * warmup times that are thrown away, then a number of measured times.
+ * Instances and solver runs are seeded: measured run i uses seed + i, so a
+ * benchmark repeated with the same seed solves the same problems the same
+ * way. Every measured run is timed with System.nanoTime and records the
+ * cost of the tour it found and its gap to a reference cost: the Held-Karp
+ * optimum for small instances, the 1-tree lower bound otherwise. Solvers
+ * run inside a fork-join pool of the configured size, so parallel phases
+ * (Held-Karp layers, window polishing) scale with the thread count.
+ *
+ * Results can be written as one CSV row per run and as a JSON summary with
+ * p50/p95/p99 latencies, together with the bytes allocated and the GC time
+ * of every solve and of each phase the solver reports to its
+ * AllocationProfiler. Each run also keeps the convergence trace of its
+ * solver, from which cost-vs-time and gap-vs-time charts are drawn with
+ * one curve per solver and thread count. The runner is used by FinalProject and can be
+ * started on its own from the command line or through Maven:
+ *
+ *   java --add-modules jdk.incubator.vector -cp target/classes:... cpsc450.Benchmark --sizes 50,100 --threads 1,2,4
+ *   mvn -Pbenchmark exec:exec -Dbenchmark.args="--solvers lk,hk --sizes 10,12"
+ *
+ * The benchmark profile forks a JVM with the vector module. Without the
+ * module, for example under mvn exec:java, which runs inside the Maven
+ * JVM, the Kernels fall back to plain loops and the numbers measure
+ * those instead.
+ */
+public class Benchmark {
+
+    static final int EXACT_REFERENCE_LIMIT = 13; // Largest instance whose reference is solved exactly
+
+    /**
+     * A solver under test. Records its new best costs in the run's trace,
+     * charges its phases to the run's profiler, and returns the cost of the
+     * tour it found.
+     */
+    @FunctionalInterface
+    public interface Solver {
+        double solve(Graph graph, Run run);
+    }
+
+    /**
+     * What a solver gets for one run.
+     */
+    public static class Run {
+        final ForkJoinPool pool;
+        final long seed;
+        final ConvergenceTrace trace = new ConvergenceTrace();
+        final AllocationProfiler profiler = new AllocationProfiler();
+
+        Run(ForkJoinPool pool, long seed) {
+            this.pool = pool;
+            this.seed = seed;
+        }
+    }
+
+    /**
+     * The solvers known to the command line, by name.
+     */
+    static final Map<String, Solver> SOLVERS = new LinkedHashMap<>();
+
+    static {
+        SOLVERS.put("lk", (g, run) -> {
+            LinKernighan lk = new LinKernighan(g, run.seed);
+            lk.setTrace(run.trace);
+            lk.setProfiler(run.profiler);
+            lk.run();
+            return lk.calculateTourCost(lk.getTour());
+        });
+        SOLVERS.put("lk-polish", (g, run) -> {
+            LinKernighan lk = new LinKernighan(g, run.seed);
+            lk.setTrace(run.trace);
+            lk.setProfiler(run.profiler);
+            lk.run();
+            if (g.vertices() >= LinKernighan.MAX_WINDOW) {
+                lk.polishWithWindows(LinKernighan.MAX_WINDOW);
+            }
+            return lk.calculateTourCost(lk.getTour());
+        });
+        SOLVERS.put("lk-5opt", (g, run) -> {
+            LinKernighan lk = new LinKernighan(g, run.seed);
+            lk.setMoveDepth(LinKernighan.MAX_MOVE_DEPTH);
+            lk.setTrace(run.trace);
+            lk.setProfiler(run.profiler);
+            lk.run();
+            return lk.calculateTourCost(lk.getTour());
+        });
+        SOLVERS.put("lk-backbone", (g, run) -> {
+            LinKernighan lk = new LinKernighan(g, run.seed);
+            lk.setBackboneRestarts(3);
+            lk.setTrace(run.trace);
+            lk.setProfiler(run.profiler);
+            lk.run();
+            return lk.calculateTourCost(lk.getTour());
+        });
+        SOLVERS.put("lk-multilevel", (g, run) -> {
+            LinKernighan lk = new LinKernighan(g, run.seed);
+            lk.setTrace(run.trace);
+            lk.setProfiler(run.profiler);
+            lk.runMultilevel();
+            return lk.calculateTourCost(lk.getTour());
+        });
+        SOLVERS.put("hk", (g, run) -> {
+            HeldKarp hk = new HeldKarp(g);
+            run.trace.start();
+            run.profiler.enter("held-karp");
+            hk.runParallel(run.pool);
+            run.profiler.exit();
+            run.trace.offer(hk.getTourCost()); // Held-Karp only has its final answer
+            return hk.getTourCost();
+        });
+    }
+
+    private final int warmup;
+    private final int runs;
+    private final long seed;
+
+    /**
+     * Constructor for the Benchmark class, seeded with 0
+     * @param warmup The number of unmeasured runs before each configuration
+     * @param runs   The number of measured runs per configuration
+     */
+    public Benchmark(int warmup, int runs) {
+        this(warmup, runs, 0);
+    }
+
+    /**
+     * Constructor for the Benchmark class
+     * @param warmup The number of unmeasured runs before each configuration
+     * @param runs   The number of measured runs per configuration
+     * @param seed   The seed of the first measured run
+     */
+    public Benchmark(int warmup, int runs, long seed) {
+        if (warmup < 0 || runs < 1) {
+            throw new IllegalArgumentException("Need at least one measured run and no negative warmup");
+        }
+        this.warmup = warmup;
+        this.runs = runs;
+        this.seed = seed;
+    }
+
+    /**
+     * Computes the reference cost that gaps are measured against.
+     * @param graph The instance
+     * @return The optimal tour cost for small instances, a lower bound otherwise
+     */
+    static double referenceCost(Graph graph) {
+        if (graph.vertices() <= EXACT_REFERENCE_LIMIT) {
+            HeldKarp hk = new HeldKarp(graph);
+            hk.run();
+            return hk.getTourCost();
+        }
+        return new OneTreeBound(graph).compute();
+    }
+
+    /**
+     * Benchmarks one configuration.
+     * @param instance  A name for the instance, used in the output
+     * @param graph     The instance
+     * @param reference The reference cost for gaps, or NaN to skip gaps
+     * @param solver    A name for the solver, used in the output
+     * @param impl      The solver
+     * @param threads   The parallelism of the pool the solver runs in
+     * @return The measured runs
+     */
+    public Result run(String instance, Graph graph, double reference, String solver, Solver impl, int threads) {
+        Result result = new Result(instance, solver, graph.vertices(), threads, reference, runs);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (int i = 0; i < warmup; i++) {
+                Run run = new Run(pool, seed - 1 - i);
+                pool.submit(() -> impl.solve(graph, run)).join();
+            }
+            for (int i = 0; i < runs; i++) {
+                Run run = new Run(pool, seed + i);
+                long gc = AllocationProfiler.gcMillis();
+                long bytes = AllocationProfiler.allThreadsAllocatedBytes();
+                long start = System.nanoTime();
+                double cost = pool.submit(() -> impl.solve(graph, run)).join();
+                long end = System.nanoTime();
+                result.allocatedBytes[i] = AllocationProfiler.allThreadsAllocatedBytes() - bytes;
+                result.gcMillis[i] = AllocationProfiler.gcMillis() - gc;
+                result.latencyNanos[i] = end - start;
+                result.costs[i] = cost;
+                result.traces[i] = run.trace;
+                result.phases.add(run.profiler);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return result;
+    }
+
+    /**
+     * The measured runs of one configuration.
+     */
+    public static class Result {
+        final String instance;
+        final String solver;
+        final int vertices;
+        final int threads;
+        final double reference;
+        final long[] latencyNanos;
+        final double[] costs;
+        final ConvergenceTrace[] traces;
+        final long[] allocatedBytes;  // By all threads during the solve
+        final long[] gcMillis;
+        final AllocationProfiler phases = new AllocationProfiler(); // Summed over the measured runs
+
+        Result(String instance, String solver, int vertices, int threads, double reference, int runs) {
+            this.instance = instance;
+            this.solver = solver;
+            this.vertices = vertices;
+            this.threads = threads;
+            this.reference = reference;
+            this.latencyNanos = new long[runs];
+            this.costs = new double[runs];
+            this.traces = new ConvergenceTrace[runs];
+            this.allocatedBytes = new long[runs];
+            this.gcMillis = new long[runs];
+        }
+
+        /**
+         * Returns a latency percentile in milliseconds, by nearest rank.
+         * @param p The percentile, between 0 and 100
+         */
+        public double latencyMillis(double p) {
+            long[] sorted = latencyNanos.clone();
+            Arrays.sort(sorted);
+            return percentile(sorted, p) / 1e6;
+        }
+
+        /**
+         * Returns the relative gap of a run to the reference cost.
+         */
+        public double gap(int run) {
+            return (costs[run] - reference) / Math.abs(reference);
+        }
+
+        /**
+         * Returns the mean number of solves per second.
+         */
+        public double throughput() {
+            long total = 0;
+            for (long t : latencyNanos) {
+                total += t;
+            }
+            return latencyNanos.length * 1e9 / total;
+        }
+
+        /**
+         * Returns the cheapest tour cost over all runs.
+         */
+        public double bestCost() {
+            return Arrays.stream(costs).min().orElse(Double.NaN);
+        }
+
+        /**
+         * Returns the mean tour cost over all runs.
+         */
+        public double meanCost() {
+            return Arrays.stream(costs).average().orElse(Double.NaN);
+        }
+
+        /**
+         * Returns the mean bytes allocated per solve.
+         */
+        public double meanAllocatedBytes() {
+            return Arrays.stream(allocatedBytes).average().orElse(Double.NaN);
+        }
+
+        /**
+         * Returns the mean GC time per solve, in ms.
+         */
+        public double meanGcMillis() {
+            return Arrays.stream(gcMillis).average().orElse(Double.NaN);
+        }
+    }
+
+    /**
+     * Returns the nearest-rank percentile of sorted values.
+     * @param sorted The values in ascending order
+     * @param p      The percentile, between 0 and 100
+     */
+    static long percentile(long[] sorted, double p) {
+        if (p < 0 || p > 100 || sorted.length == 0) {
+            throw new IllegalArgumentException("Invalid percentile " + p + " of " + sorted.length + " values");
+        }
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Writes one CSV row per measured run.
+     * @param file    The file to write
+     * @param results The results to write
+     */
+    public static void writeCsv(Path file, List<Result> results) throws IOException {
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file))) {
+            writeCsv(w, results);
+        }
+    }
+
+    /**
+     * Writes the CSV header and one row per measured run.
+     */
+    static void writeCsv(PrintWriter w, List<Result> results) {
+        w.println("instance,solver,vertices,threads,run,latency_ms,cost,reference,gap,alloc_bytes,gc_ms");
+        for (Result r : results) {
+            for (int i = 0; i < r.costs.length; i++) {
+                w.println(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.6f,%s,%s,%s,%d,%d",
+                        r.instance, r.solver, r.vertices, r.threads, i, r.latencyNanos[i] / 1e6,
+                        number(r.costs[i]), number(r.reference), number(r.gap(i)),
+                        r.allocatedBytes[i], r.gcMillis[i]));
+            }
+        }
+    }
+
+    /**
+     * Writes a JSON array with the summary and the runs of each configuration.
+     * @param file    The file to write
+     * @param results The results to write
+     */
+    public static void writeJson(Path file, List<Result> results) throws IOException {
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file))) {
+            w.println("[");
+            for (int k = 0; k < results.size(); k++) {
+                Result r = results.get(k);
+                w.println("  {");
+                w.println("    \"instance\": \"" + r.instance + "\",");
+                w.println("    \"solver\": \"" + r.solver + "\",");
+                w.println("    \"vertices\": " + r.vertices + ",");
+                w.println("    \"threads\": " + r.threads + ",");
+                w.println("    \"runs\": " + r.costs.length + ",");
+                w.println("    \"p50_ms\": " + number(r.latencyMillis(50)) + ",");
+                w.println("    \"p95_ms\": " + number(r.latencyMillis(95)) + ",");
+                w.println("    \"p99_ms\": " + number(r.latencyMillis(99)) + ",");
+                w.println("    \"throughput_per_s\": " + number(r.throughput()) + ",");
+                w.println("    \"best_cost\": " + number(r.bestCost()) + ",");
+                w.println("    \"mean_cost\": " + number(r.meanCost()) + ",");
+                w.println("    \"reference\": " + number(r.reference) + ",");
+                w.println("    \"mean_alloc_bytes\": " + number(r.meanAllocatedBytes()) + ",");
+                w.println("    \"mean_gc_ms\": " + number(r.meanGcMillis()) + ",");
+                StringBuilder phases = new StringBuilder();
+                for (String phase : r.phases.phases()) {
+                    phases.append(phases.length() == 0 ? "" : ", ").append(String.format(Locale.ROOT,
+                            "\"%s\": {\"alloc_bytes\": %s, \"ms\": %s, \"gc_ms\": %s}", phase,
+                            number((double) r.phases.bytes(phase) / r.costs.length),
+                            number(r.phases.millis(phase) / r.costs.length),
+                            number((double) r.phases.gcMillis(phase) / r.costs.length)));
+                }
+                w.println("    \"phases_per_solve\": {" + phases + "},");
+                StringBuilder latencies = new StringBuilder();
+                StringBuilder costs = new StringBuilder();
+                StringBuilder gaps = new StringBuilder();
+                for (int i = 0; i < r.costs.length; i++) {
+                    String sep = i == 0 ? "" : ", ";
+                    latencies.append(sep).append(number(r.latencyNanos[i] / 1e6));
+                    costs.append(sep).append(number(r.costs[i]));
+                    gaps.append(sep).append(number(r.gap(i)));
+                }
+                w.println("    \"latency_ms\": [" + latencies + "],");
+                w.println("    \"cost\": [" + costs + "],");
+                w.println("    \"gap\": [" + gaps + "]");
+                w.println(k + 1 < results.size() ? "  }," : "  }");
+            }
+            w.println("]");
+        }
+    }
+
+    /**
+     * Draws the convergence of the first measured run of every
+     * configuration, one pair of charts per instance: PREFIX-INSTANCE-cost.png
+     * with the best cost over time and PREFIX-INSTANCE-gap.png with the gap
+     * to the reference in percent. The curves are step functions, since the
+     * best cost holds until the next improvement.
+     * @param prefix  The prefix of the chart files
+     * @param results The results to draw
+     */
+    public static void writeConvergenceCharts(String prefix, List<Result> results) throws Exception {
+        Map<String, List<Result>> byInstance = new LinkedHashMap<>();
+        for (Result r : results) {
+            byInstance.computeIfAbsent(r.instance, k -> new ArrayList<>()).add(r);
+        }
+        for (Map.Entry<String, List<Result>> entry : byInstance.entrySet()) {
+            List<XYSeries> costSeries = new ArrayList<>();
+            List<XYSeries> gapSeries = new ArrayList<>();
+            for (Result r : entry.getValue()) {
+                String name = r.solver + " (" + r.threads + (r.threads == 1 ? " thread)" : " threads)");
+                XYSeries cost = new XYSeries(name, false);
+                XYSeries gap = new XYSeries(name, false);
+                ConvergenceTrace trace = r.traces[0];
+                for (int i = 0; i < trace.size(); i++) {
+                    if (!Double.isFinite(trace.cost(i)) || trace.cost(i) >= Double.MAX_VALUE / 4) {
+                        continue; // Tours over missing edges have no meaningful cost
+                    }
+                    if (i > 0 && cost.getItemCount() > 0) { // Hold the previous best until now
+                        cost.add(trace.timeMillis(i), trace.cost(i - 1));
+                        gap.add(trace.timeMillis(i), 100 * (trace.cost(i - 1) - r.reference) / Math.abs(r.reference));
+                    }
+                    cost.add(trace.timeMillis(i), trace.cost(i));
+                    gap.add(trace.timeMillis(i), 100 * (trace.cost(i) - r.reference) / Math.abs(r.reference));
+                }
+                double end = r.latencyNanos[0] / 1e6;
+                if (cost.getItemCount() > 0 && end > cost.getMaxX()) {
+                    cost.add(end, trace.best());
+                    gap.add(end, 100 * (trace.best() - r.reference) / Math.abs(r.reference));
+                }
+                costSeries.add(cost);
+                if (Double.isFinite(r.reference)) {
+                    gapSeries.add(gap);
+                }
+            }
+            String instance = entry.getKey();
+            FinalProject.chart(costSeries.toArray(new XYSeries[0]), "Convergence on " + instance,
+                    "Time (ms)", "Best tour cost", prefix + "-" + instance + "-cost.png");
+            if (!gapSeries.isEmpty()) {
+                FinalProject.chart(gapSeries.toArray(new XYSeries[0]), "Gap to reference on " + instance,
+                        "Time (ms)", "Gap (%)", prefix + "-" + instance + "-gap.png");
+            }
+        }
+    }
+
+    /**
+     * Formats a number for CSV and JSON, writing null for NaN and infinity.
+     */
+    private static String number(double value) {
+        return Double.isFinite(value) ? String.format(Locale.ROOT, "%.6f", value) : "null";
+    }
+
+    /**
+     * Builds a named instance of the given size.
+     * @param kind "dense" or "sparse" for the labeled graphs FinalProject
+     *             uses, or any kind known to InstanceGenerator
+     * @param n    The number of vertices
+     * @param seed The seed for generated instances
+     * @return The instance
+     */
+    static Graph instance(String kind, int n, long seed) throws Exception {
+        switch (kind) {
+            case "dense":
+                return FinalProject.addEdgeLabels(FinalProject.createDenseCsrGraph(n)).asGraph();
+            case "sparse":
+                return FinalProject.addEdgeLabels(FinalProject.createSparseAdjList(n)).asGraph();
+            default:
+                return InstanceGenerator.generate(kind, n, seed);
+        }
+    }
+
+    // Options that define the measured workload, recorded in baseline files
+    static final List<String> WORKLOAD_OPTIONS = List.of("instances", "sizes", "solvers", "threads", "warmup", "runs", "seed");
+
+    /**
+     * Runs every combination of instance, size, solver and thread count.
+     * @param args Options, each followed by a value:
+     *             --instances uniform,road  --sizes 50,100  --solvers lk,hk
+     *             --threads 1,2,4  --warmup 2  --runs 10  --seed 1  --out benchmark
+     *             --charts true  --save-baseline FILE  --gate FILE  --tolerance 0.25
+     *             Instances are dense, sparse, uniform, clustered, grid or road.
+     *             The results go to OUT.csv and OUT.json, and the
+     *             convergence charts to OUT-INSTANCE-cost.png and -gap.png.
+     *             --save-baseline also writes the results as a baseline file.
+     *             --gate reruns the workload of a baseline file, writes the
+     *             comparison to OUT-diff.md and fails on a regression.
+     * @throws IllegalStateException if the gate finds a regression
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("instances", "uniform");
+        options.put("sizes", "50,100,200");
+        options.put("solvers", "lk");
+        options.put("threads", "1," + Runtime.getRuntime().availableProcessors());
+        options.put("warmup", "2");
+        options.put("runs", "10");
+        options.put("seed", "1");
+        options.put("out", "benchmark");
+        options.put("charts", "true");
+        options.put("save-baseline", "");
+        options.put("gate", "");
+        options.put("tolerance", Double.toString(RegressionGate.LATENCY_TOLERANCE));
+        parseOptions(args, options);
+
+        RegressionGate.Baseline baseline = null;
+        if (!options.get("gate").isEmpty()) {
+            baseline = RegressionGate.load(Paths.get(options.get("gate")));
+            parseOptions(baseline.workload.split(" "), options); // Rerun exactly the baseline workload
+        }
+
+        // Calibrate first, while the JVM is in the same state for saving and gating
+        double calibration = options.get("save-baseline").isEmpty() && baseline == null ? Double.NaN
+                : RegressionGate.calibrate();
+        List<Result> results = runAll(options);
+
+        String out = options.get("out");
+        writeCsv(Paths.get(out + ".csv"), results);
+        writeJson(Paths.get(out + ".json"), results);
+        System.out.println("Wrote " + out + ".csv and " + out + ".json");
+        if (Boolean.parseBoolean(options.get("charts"))) {
+            writeConvergenceCharts(out, results);
+            System.out.println("Wrote convergence charts to " + out + "-*.png");
+        }
+
+        if (!options.get("save-baseline").isEmpty()) {
+            StringBuilder workload = new StringBuilder();
+            for (String key : WORKLOAD_OPTIONS) {
+                workload.append(workload.length() == 0 ? "" : " ").append("--").append(key).append(' ').append(options.get(key));
+            }
+            RegressionGate.save(Paths.get(options.get("save-baseline")), results, workload.toString(), calibration);
+            System.out.println("Wrote baseline " + options.get("save-baseline"));
+        }
+
+        if (baseline != null) {
+            double tolerance = Double.parseDouble(options.get("tolerance"));
+            List<RegressionGate.Comparison> comparisons = RegressionGate.compare(baseline, results, calibration,
+                    tolerance);
+            String report = RegressionGate.report(comparisons, tolerance);
+            Files.writeString(Paths.get(out + "-diff.md"), report);
+            System.out.print(report);
+            if (comparisons.stream().anyMatch(RegressionGate.Comparison::regressed)) {
+                throw new IllegalStateException("Performance regression against " + options.get("gate")
+                        + ", see " + out + "-diff.md");
+            }
+        }
+    }
+
+    /**
+     * Reads "--name value" pairs into the options, which must already hold
+     * a default for every known name.
+     */
+    private static void parseOptions(String[] args, Map<String, String> options) {
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length || !options.containsKey(args[i].substring(2))) {
+                throw new IllegalArgumentException("Unknown option " + args[i] + "; expected one of --" + String.join(", --", options.keySet()));
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+    }
+
+    /**
+     * Benchmarks every configuration named by the options, printing a
+     * summary line for each.
+     */
+    private static List<Result> runAll(Map<String, String> options) throws Exception {
+        long seed = Long.parseLong(options.get("seed"));
+        Benchmark benchmark = new Benchmark(Integer.parseInt(options.get("warmup")), Integer.parseInt(options.get("runs")), seed);
+        int[] threads = Arrays.stream(options.get("threads").split(",")).mapToInt(Integer::parseInt).distinct().toArray();
+        List<Result> results = new ArrayList<>();
+        for (String kind : options.get("instances").split(",")) {
+            for (String size : options.get("sizes").split(",")) {
+                int n = Integer.parseInt(size);
+                Graph graph = instance(kind, n, seed);
+                double reference = referenceCost(graph);
+                for (String name : options.get("solvers").split(",")) {
+                    Solver solver = SOLVERS.get(name);
+                    if (solver == null) {
+                        throw new IllegalArgumentException("Unknown solver " + name + "; expected one of " + SOLVERS.keySet());
+                    }
+                    for (int t : threads) {
+                        Result r = benchmark.run(kind + "-" + n, graph, reference, name, solver, t);
+                        results.add(r);
+                        System.out.printf(Locale.ROOT,
+                                "%-12s %-10s threads=%-3d p50=%9.3fms p95=%9.3fms p99=%9.3fms best=%s gap=%s alloc=%.1fMB gc=%.1fms%n",
+                                r.instance, r.solver, t, r.latencyMillis(50), r.latencyMillis(95),
+                                r.latencyMillis(99), number(r.bestCost()),
+                                number((r.bestCost() - reference) / Math.abs(reference)),
+                                r.meanAllocatedBytes() / 1e6, r.meanGcMillis());
+                        for (String phase : r.phases.phases()) {
+                            System.out.printf(Locale.ROOT, "    %-10s %9.3fms %10.1fKB gc=%.1fms per solve%n", phase,
+                                    r.phases.millis(phase) / r.costs.length, r.phases.bytes(phase) / 1e3 / r.costs.length,
+                                    (double) r.phases.gcMillis(phase) / r.costs.length);
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,470 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exact branch-and-bound solver for the symmetric TSP.
+ *
+ * The search starts from the Lin-Kernighan tour as its incumbent upper
+ * bound. Each node of the search tree fixes some edges into the tour and
+ * excludes others, and is bounded by a penalized 1-tree (the Held-Karp
+ * bound) that respects those constraints. A node whose bound reaches the
+ * incumbent is pruned; otherwise it branches on a vertex of degree greater
+ * than two in its 1-tree. Nodes are explored as fork-join tasks, so idle
+ * threads steal subtrees from busy ones.
+ */
+public class BranchAndBound {
+
+    private static final byte FREE = 0;
+    private static final byte FORCED = 1;
+    private static final byte EXCLUDED = 2;
+    private static final int ROOT_ITERATIONS = 300;
+    private static final int NODE_ITERATIONS = 40;
+    private static final double EPSILON = 1e-9;
+
+    private final Graph graph;
+    private final double[][] weights;
+    private final int n;
+    private final boolean integral; // All weights are integers, so bounds can be rounded up
+    private final AtomicLong nodes = new AtomicLong();
+    private double bestCost;
+    private int[] bestTour;
+
+    /**
+     * Constructor for the BranchAndBound class
+     * @param graph The graph representing the TSP problem, with symmetric weights
+     */
+    public BranchAndBound(Graph graph) {
+        this.graph = graph;
+        this.n = graph.vertices();
+        this.weights = new double[n][n];
+        boolean allIntegers = true;
+        for (int i = 0; i < n; i++) {
+            graph.copyWeightRow(i, weights[i]);
+            for (int j = 0; j < n; j++) {
+                if (i != j && Double.isFinite(weights[i][j]) && weights[i][j] != Math.rint(weights[i][j])) {
+                    allIntegers = false;
+                }
+            }
+        }
+        this.integral = allIntegers;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (weights[i][j] != weights[j][i]) {
+                    throw new GraphException("Branch-and-bound requires symmetric weights");
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves the instance on the common fork-join pool.
+     * @return A List representing the optimal tour
+     */
+    public List<Integer> run() {
+        return run(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solves the instance, exploring the search tree on the given pool.
+     * @param pool The pool that explores the search tree
+     * @return A List representing the optimal tour
+     */
+    public List<Integer> run(ForkJoinPool pool) {
+        nodes.set(0);
+        LinKernighan lk = new LinKernighan(graph);
+        lk.run();
+        List<Integer> incumbent = lk.getTour();
+        bestTour = incumbent.stream().mapToInt(Integer::intValue).toArray();
+        bestCost = lk.calculateTourCost(incumbent);
+
+        if (n > 3) {
+            pool.invoke(new Node(new byte[n * n], new double[n], ROOT_ITERATIONS));
+        }
+
+        List<Integer> tour = new ArrayList<>(n);
+        for (int v : bestTour) {
+            tour.add(v);
+        }
+        return tour;
+    }
+
+    /**
+     * Returns the cost of the optimal tour found by the last call to run().
+     * @return The optimal tour cost
+     */
+    public double getTourCost() {
+        return bestCost;
+    }
+
+    /**
+     * Returns the number of search tree nodes bounded by the last run.
+     * @return The number of nodes
+     */
+    public long getNodesExplored() {
+        return nodes.get();
+    }
+
+    private synchronized double incumbentCost() {
+        return bestCost;
+    }
+
+    /**
+     * Returns true if no tour under a node with this bound can beat the
+     * incumbent.
+     */
+    private boolean prunable(double bound, double upper) {
+        if (integral) {
+            return Math.ceil(bound - EPSILON) >= upper - EPSILON;
+        }
+        return bound >= upper - EPSILON;
+    }
+
+    private synchronized void offerTour(int[] tour, double cost) {
+        if (cost < bestCost - EPSILON) {
+            bestCost = cost;
+            bestTour = tour;
+        }
+    }
+
+    /**
+     * A node of the search tree: a set of forced and excluded edges
+     * together with the penalties inherited from its parent.
+     */
+    private class Node extends RecursiveAction {
+        private final byte[] state; // state[i * n + j] for the edge between i and j
+        private final double[] pi;
+        private final int iterations;
+
+        Node(byte[] state, double[] pi, int iterations) {
+            this.state = state;
+            this.pi = pi;
+            this.iterations = iterations;
+        }
+
+        @Override
+        protected void compute() {
+            nodes.incrementAndGet();
+            if (!propagate()) {
+                return;
+            }
+
+            int[] degree = new int[n];
+            int[] parent = new int[n];
+            int[] zeroEdges = new int[2];
+            double upper = incumbentCost();
+            double bound = Double.NEGATIVE_INFINITY;
+            double step = 2.0;
+            for (int iteration = 0; iteration <= iterations; iteration++) {
+                double value = oneTree(degree, parent, zeroEdges);
+                if (Double.isInfinite(value)) {
+                    return; // No 1-tree satisfies the constraints
+                }
+                bound = Math.max(bound, value);
+                if (prunable(bound, upper)) {
+                    return;
+                }
+                if (isTour(degree)) {
+                    offerTour(walkTour(parent, zeroEdges), value);
+                    return;
+                }
+                if (iteration == iterations) {
+                    break;
+                }
+                double norm = 0;
+                for (int i = 0; i < n; i++) {
+                    norm += (degree[i] - 2) * (degree[i] - 2);
+                }
+                double length = step * (upper - value) / norm;
+                for (int i = 0; i < n; i++) {
+                    pi[i] += length * (degree[i] - 2);
+                }
+                if (iteration % 10 == 9) {
+                    step /= 2;
+                }
+                upper = incumbentCost();
+            }
+
+            branch(degree, parent, zeroEdges);
+        }
+
+        /**
+         * Applies the consequences of the forced edges: a vertex with two
+         * forced edges loses all its other edges, and forced edges may not
+         * close a cycle shorter than a full tour.
+         * @return False if the constraints cannot be satisfied by any tour
+         */
+        private boolean propagate() {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int v = 0; v < n; v++) {
+                    int forced = 0, allowed = 0;
+                    for (int u = 0; u < n; u++) {
+                        if (u != v && state[v * n + u] != EXCLUDED) {
+                            allowed++;
+                            if (state[v * n + u] == FORCED) {
+                                forced++;
+                            }
+                        }
+                    }
+                    if (forced > 2 || allowed < 2) {
+                        return false;
+                    }
+                    if (forced == 2 && allowed > 2) {
+                        for (int u = 0; u < n; u++) {
+                            if (u != v && state[v * n + u] == FREE) {
+                                setState(v, u, EXCLUDED);
+                            }
+                        }
+                        changed = true;
+                    }
+                }
+            }
+
+            // Forced edges must not contain a cycle unless it is the whole tour
+            int[] root = new int[n];
+            for (int v = 0; v < n; v++) {
+                root[v] = v;
+            }
+            int forcedEdges = 0;
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    if (state[i * n + j] == FORCED) {
+                        forcedEdges++;
+                        int a = find(root, i), b = find(root, j);
+                        if (a == b && forcedEdges < n) {
+                            return false;
+                        }
+                        root[a] = b;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Computes the penalized minimum 1-tree under the node's constraints.
+         * @param degree The degree of each vertex (output)
+         * @param parent The tree parent of each vertex 1..n-1 (output)
+         * @param zeroEdges The two neighbours of vertex 0 (output)
+         * @return The 1-tree cost minus twice the penalties, or infinity
+         */
+        private double oneTree(int[] degree, int[] parent, int[] zeroEdges) {
+            Arrays.fill(degree, 0);
+            double[] key = new double[n];
+            boolean[] forcedLink = new boolean[n];
+            boolean[] inTree = new boolean[n];
+            Arrays.fill(key, Double.POSITIVE_INFINITY);
+            key[1] = 0;
+            parent[1] = -1;
+            double cost = 0;
+
+            // Prim's algorithm, always preferring forced edges
+            for (int added = 0; added < n - 1; added++) {
+                int u = -1;
+                for (int v = 1; v < n; v++) {
+                    if (inTree[v]) {
+                        continue;
+                    }
+                    if (u == -1 || (forcedLink[v] && !forcedLink[u])
+                            || (forcedLink[v] == forcedLink[u] && key[v] < key[u])) {
+                        u = v;
+                    }
+                }
+                if (Double.isInfinite(key[u])) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                inTree[u] = true;
+                if (parent[u] >= 0) {
+                    cost += key[u];
+                    degree[u]++;
+                    degree[parent[u]]++;
+                }
+                for (int v = 1; v < n; v++) {
+                    if (inTree[v] || forcedLink[v]) {
+                        continue;
+                    }
+                    byte s = state[u * n + v];
+                    if (s == EXCLUDED) {
+                        continue;
+                    }
+                    double w = weights[u][v] + pi[u] + pi[v];
+                    if (s == FORCED || w < key[v]) {
+                        key[v] = w;
+                        parent[v] = u;
+                        forcedLink[v] = s == FORCED;
+                    }
+                }
+            }
+
+            // Two edges at vertex 0, forced ones first
+            int first = -1, second = -1;
+            double firstCost = Double.POSITIVE_INFINITY, secondCost = Double.POSITIVE_INFINITY;
+            for (int v = 1; v < n; v++) {
+                byte s = state[v];
+                if (s == EXCLUDED) {
+                    continue;
+                }
+                double w = s == FORCED ? Double.NEGATIVE_INFINITY : weights[0][v] + pi[v];
+                if (w < firstCost) {
+                    second = first;
+                    secondCost = firstCost;
+                    first = v;
+                    firstCost = w;
+                } else if (w < secondCost) {
+                    second = v;
+                    secondCost = w;
+                }
+            }
+            if (second == -1) {
+                return Double.POSITIVE_INFINITY;
+            }
+            cost += weights[0][first] + pi[0] + pi[first] + weights[0][second] + pi[0] + pi[second];
+            degree[0] = 2;
+            degree[first]++;
+            degree[second]++;
+            zeroEdges[0] = first;
+            zeroEdges[1] = second;
+
+            double penaltySum = 0;
+            for (double p : pi) {
+                penaltySum += p;
+            }
+            return cost - 2 * penaltySum;
+        }
+
+        /**
+         * Branches on a vertex of degree greater than two. With free tree
+         * edges e1 and e2 at that vertex, the children exclude e1, force e1
+         * and exclude e2, and force both. If the vertex already has a forced
+         * edge, forcing e1 completes it and the third child is not needed.
+         */
+        private void branch(int[] degree, int[] parent, int[] zeroEdges) {
+            int branchVertex = -1;
+            for (int u = 0; u < n; u++) {
+                if (degree[u] > 2 && (branchVertex == -1 || degree[u] > degree[branchVertex])) {
+                    branchVertex = u;
+                }
+            }
+            final int v = branchVertex;
+
+            List<Integer> free = new ArrayList<>();
+            int forced = 0;
+            for (int u : treeNeighbors(v, parent, zeroEdges)) {
+                if (state[v * n + u] == FREE) {
+                    free.add(u);
+                } else {
+                    forced++;
+                }
+            }
+            // Cheapest free edges first, so the forcing children stay close to the 1-tree
+            free.sort((a, b) -> Double.compare(weights[v][a], weights[v][b]));
+            int e1 = free.get(0);
+
+            List<Node> children = new ArrayList<>();
+            children.add(child(v, e1, EXCLUDED));
+            if (forced == 1 || free.size() == 1) {
+                children.add(child(v, e1, FORCED));
+            } else {
+                int e2 = free.get(1);
+                Node forceOne = child(v, e1, FORCED);
+                forceOne.setState(v, e2, EXCLUDED);
+                children.add(forceOne);
+                Node forceTwo = child(v, e1, FORCED);
+                forceTwo.setState(v, e2, FORCED);
+                children.add(forceTwo);
+            }
+            invokeAll(children);
+        }
+
+        private Node child(int v, int u, byte s) {
+            Node child = new Node(state.clone(), pi.clone(), NODE_ITERATIONS);
+            child.setState(v, u, s);
+            return child;
+        }
+
+        private void setState(int a, int b, byte s) {
+            state[a * n + b] = s;
+            state[b * n + a] = s;
+        }
+
+        private List<Integer> treeNeighbors(int v, int[] parent, int[] zeroEdges) {
+            List<Integer> neighbors = new ArrayList<>();
+            if (v == 0) {
+                neighbors.add(zeroEdges[0]);
+                neighbors.add(zeroEdges[1]);
+                return neighbors;
+            }
+            if (zeroEdges[0] == v || zeroEdges[1] == v) {
+                neighbors.add(0);
+            }
+            if (parent[v] >= 0) {
+                neighbors.add(parent[v]);
+            }
+            for (int u = 1; u < n; u++) {
+                if (parent[u] == v) {
+                    neighbors.add(u);
+                }
+            }
+            return neighbors;
+        }
+
+        /**
+         * Turns a 1-tree in which every vertex has degree two into a tour.
+         */
+        private int[] walkTour(int[] parent, int[] zeroEdges) {
+            List<List<Integer>> adjacent = new ArrayList<>();
+            for (int v = 0; v < n; v++) {
+                adjacent.add(new ArrayList<>(2));
+            }
+            adjacent.get(0).add(zeroEdges[0]);
+            adjacent.get(0).add(zeroEdges[1]);
+            adjacent.get(zeroEdges[0]).add(0);
+            adjacent.get(zeroEdges[1]).add(0);
+            for (int v = 2; v < n; v++) {
+                adjacent.get(v).add(parent[v]);
+                adjacent.get(parent[v]).add(v);
+            }
+            int[] tour = new int[n];
+            int previous = -1, current = 0;
+            for (int i = 0; i < n; i++) {
+                tour[i] = current;
+                List<Integer> next = adjacent.get(current);
+                int step = next.get(0) != previous ? next.get(0) : next.get(1);
+                previous = current;
+                current = step;
+            }
+            return tour;
+        }
+    }
+
+    private static int find(int[] root, int v) {
+        while (root[v] != v) {
+            root[v] = root[root[v]];
+            v = root[v];
+        }
+        return v;
+    }
+
+    private static boolean isTour(int[] degree) {
+        for (int d : degree) {
+            if (d != 2) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
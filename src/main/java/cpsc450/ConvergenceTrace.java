@@ -0,0 +1,102 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.util.Arrays;
+
+/**
+ * Time-stamped record of every new best tour cost found by a solver.
+ *
+ * Times are measured with System.nanoTime from the last call to start().
+ * A cost is only recorded when it beats the previous entry, so the trace
+ * is a strictly decreasing step function of time: the anytime profile of
+ * the solver.
+ */
+public class ConvergenceTrace {
+
+    private long startNanos = System.nanoTime();
+    private long[] nanos = new long[16];
+    private double[] costs = new double[16];
+    private int size;
+
+    /**
+     * Clears the trace and restarts its clock.
+     */
+    public void start() {
+        size = 0;
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records a cost if it is better than the best recorded so far.
+     * @param cost The cost of the current tour
+     * @return True if the cost was recorded
+     */
+    public boolean offer(double cost) {
+        if (size > 0 && cost >= costs[size - 1]) {
+            return false;
+        }
+        if (size == costs.length) {
+            nanos = Arrays.copyOf(nanos, 2 * size);
+            costs = Arrays.copyOf(costs, 2 * size);
+        }
+        nanos[size] = System.nanoTime() - startNanos;
+        costs[size] = cost;
+        size++;
+        return true;
+    }
+
+    /**
+     * Returns the number of recorded improvements.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the time of an entry in milliseconds since start().
+     */
+    public double timeMillis(int i) {
+        checkIndex(i);
+        return nanos[i] / 1e6;
+    }
+
+    /**
+     * Returns the cost of an entry.
+     */
+    public double cost(int i) {
+        checkIndex(i);
+        return costs[i];
+    }
+
+    /**
+     * Returns the best cost recorded, or NaN if the trace is empty.
+     */
+    public double best() {
+        return size == 0 ? Double.NaN : costs[size - 1];
+    }
+
+    /**
+     * Returns the best cost known at a given time, or NaN if nothing had
+     * been recorded by then.
+     * @param millis The time in milliseconds since start()
+     */
+    public double costAt(double millis) {
+        double cost = Double.NaN;
+        for (int i = 0; i < size && nanos[i] / 1e6 <= millis; i++) {
+            cost = costs[i];
+        }
+        return cost;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Trace entry " + i + " of " + size);
+        }
+    }
+}
@@ -0,0 +1,447 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable compressed-sparse-row implementation of the Graph interface.
+ *
+ * The out edges of vertex x are targets[offsets[x] .. offsets[x + 1]),
+ * sorted by target, with their weights at the same positions in weights.
+ * The in edges are kept the same way in a transposed index. Graphs are
+ * created with a Builder, which accepts edges as primitive arrays.
+ */
+public class CsrGraph implements Graph {
+
+    private final int vertexCount;
+    private final int[] offsets;   // row start of each vertex, plus the total at the end
+    private final int[] targets;   // out neighbours, sorted within each row
+    private final double[] weights; // weight of each out edge
+    private final int[] inOffsets; // transposed index for in edges
+    private final int[] sources;   // in neighbours, sorted within each row
+
+    private CsrGraph(int vertexCount, int[] offsets, int[] targets, double[] weights) {
+        this.vertexCount = vertexCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+
+        // Scatter rows in source order, so every in row ends up sorted too
+        this.inOffsets = new int[vertexCount + 1];
+        for (int e = 0; e < targets.length; e++) {
+            inOffsets[targets[e] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        this.sources = new int[targets.length];
+        int[] fill = Arrays.copyOf(inOffsets, vertexCount);
+        for (int x = 0; x < vertexCount; x++) {
+            for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+                sources[fill[targets[e]]++] = x;
+            }
+        }
+    }
+
+    /**
+     * CsrGraph is immutable; use a Builder to create graphs.
+     * @throws GraphException always
+     */
+    @Override
+    public void addEdge(int x, int y) {
+        throw new GraphException("CsrGraph is immutable");
+    }
+
+    /**
+     * CsrGraph is immutable; use a Builder to create graphs.
+     * @throws GraphException always
+     */
+    @Override
+    public void removeEdge(int x, int y) {
+        throw new GraphException("CsrGraph is immutable");
+    }
+
+    /**
+     * Get the set of outgoing edges from a given vertex.
+     */
+    @Override
+    public Set<Integer> out(int x) {
+        return isValidVertex(x) ? toSet(targets, offsets[x], offsets[x + 1]) : Collections.emptySet();
+    }
+
+    /**
+     * Get the set of incoming edges to a given vertex.
+     */
+    @Override
+    public Set<Integer> in(int x) {
+        return isValidVertex(x) ? toSet(sources, inOffsets[x], inOffsets[x + 1]) : Collections.emptySet();
+    }
+
+    /**
+     * Get the set of adjacent vertices to a given vertex.
+     */
+    @Override
+    public Set<Integer> adj(int x) {
+        if (!isValidVertex(x)) {
+            return Collections.emptySet();
+        }
+        Set<Integer> adjacent = out(x);
+        adjacent.addAll(in(x));
+        return adjacent;
+    }
+
+    /**
+     * Check if there is an edge from vertex x to vertex y.
+     */
+    @Override
+    public boolean hasEdge(int x, int y) {
+        return isValidVertex(x) && isValidVertex(y) && indexOf(x, y) >= 0;
+    }
+
+    /**
+     * Check if a vertex exists in the graph.
+     */
+    @Override
+    public boolean hasVertex(int x) {
+        return isValidVertex(x);
+    }
+
+    /**
+     * Get the number of vertices in the graph.
+     */
+    @Override
+    public int vertices() {
+        return vertexCount;
+    }
+
+    /**
+     * Get the number of edges in the graph.
+     */
+    @Override
+    public int edges() {
+        return targets.length;
+    }
+
+    /**
+     * Returns a list of all edges in the graph.
+     */
+    @Override
+    public List<Edge> getAllEdges() {
+        List<Edge> edges = new ArrayList<>(targets.length);
+        for (int x = 0; x < vertexCount; x++) {
+            for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+                edges.add(new Edge(x, targets[e], weights[e]));
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Get the weight of the edge from x to y, or positive infinity if
+     * there is no such edge.
+     */
+    @Override
+    public double weight(int x, int y) {
+        if (isValidVertex(x) && isValidVertex(y)) {
+            int e = indexOf(x, y);
+            if (e >= 0) {
+                return weights[e];
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the number of vertices in the graph.
+     */
+    @Override
+    public int size() {
+        return vertexCount;
+    }
+
+    /**
+     * Returns an array of neighbors for the given node.
+     * Neighbors are all the vertices that are adjacent to the current node (both outgoing and incoming).
+     */
+    @Override
+    public int[] getNeighbors(int currentNode) {
+        if (!isValidVertex(currentNode)) {
+            throw new IllegalArgumentException("Invalid node index");
+        }
+        return adj(currentNode).stream().mapToInt(i -> i).toArray();
+    }
+
+    /**
+     * Get the number of outgoing edges from a given vertex.
+     */
+    @Override
+    public int outDegree(int x) {
+        return isValidVertex(x) ? offsets[x + 1] - offsets[x] : 0;
+    }
+
+    /**
+     * Walk the outgoing edges of a given vertex in target order.
+     */
+    @Override
+    public void forEachOut(int x, IntConsumer action) {
+        if (isValidVertex(x)) {
+            for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+                action.accept(targets[e]);
+            }
+        }
+    }
+
+    /**
+     * Returns a cursor over the rows of the edge arrays.
+     */
+    @Override
+    public NeighborCursor outCursor() {
+        return new NeighborCursor() {
+            private int e;
+            private int end;
+
+            @Override
+            public NeighborCursor reset(int x) {
+                e = isValidVertex(x) ? offsets[x] : 0;
+                end = isValidVertex(x) ? offsets[x + 1] : 0;
+                return this;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return e < end;
+            }
+
+            @Override
+            public int next() {
+                return targets[e++];
+            }
+        };
+    }
+
+    /**
+     * Copy the weights of all edges from x into dst, with positive infinity
+     * for missing edges.
+     */
+    @Override
+    public void copyWeightRow(int x, double[] dst) {
+        Arrays.fill(dst, 0, vertexCount, Double.POSITIVE_INFINITY);
+        if (isValidVertex(x)) {
+            for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+                dst[targets[e]] = weights[e];
+            }
+        }
+    }
+
+    /**
+     * Returns the row offsets of the out edges. The array is shared, not
+     * copied, and must not be modified.
+     */
+    int[] rowOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Returns the targets of the out edges, sorted within each row. The
+     * array is shared, not copied, and must not be modified.
+     */
+    int[] rowTargets() {
+        return targets;
+    }
+
+    /**
+     * Returns the position of the edge from x to y in the edge arrays, or
+     * a negative value if there is no such edge.
+     */
+    private int indexOf(int x, int y) {
+        int e = Arrays.binarySearch(targets, offsets[x], offsets[x + 1], y);
+        return e >= 0 ? e : -1;
+    }
+
+    private boolean isValidVertex(int v) {
+        return v >= 0 && v < vertexCount;
+    }
+
+    private static Set<Integer> toSet(int[] values, int from, int to) {
+        Set<Integer> set = new HashSet<>();
+        for (int i = from; i < to; i++) {
+            set.add(values[i]);
+        }
+        return set;
+    }
+
+    /**
+     * Collects edges and builds an immutable CsrGraph from them. Edges with
+     * an invalid endpoint are ignored, and if an edge is added more than
+     * once the weight added last is kept.
+     */
+    public static class Builder {
+        private final int vertexCount;
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private double[] weight = new double[16];
+        private int size;
+
+        /**
+         * Create a builder for a graph with a specific number of vertices.
+         *
+         * @param vertices The number of vertices in the graph.
+         * @throws GraphException if the number of vertices is less than or equal to 0.
+         */
+        public Builder(int vertices) {
+            if (vertices <= 0) {
+                throw new GraphException("Number of vertices must be positive.");
+            }
+            this.vertexCount = vertices;
+        }
+
+        /**
+         * Add an edge from vertex x to vertex y with a default weight of 1.0.
+         */
+        public Builder addEdge(int x, int y) {
+            return addEdge(x, y, 1.0);
+        }
+
+        /**
+         * Add an edge from vertex x to vertex y with a specific weight.
+         */
+        public Builder addEdge(int x, int y, double w) {
+            ensureCapacity(size + 1);
+            from[size] = x;
+            to[size] = y;
+            weight[size] = w;
+            size++;
+            return this;
+        }
+
+        /**
+         * Add many edges at once. Edge i runs from sources[i] to targets[i]
+         * with weight weights[i]; if weights is null every edge gets 1.0.
+         */
+        public Builder addEdges(int[] sources, int[] targets, double[] weights) {
+            if (sources.length != targets.length || (weights != null && weights.length != sources.length)) {
+                throw new IllegalArgumentException("Edge arrays must have the same length");
+            }
+            ensureCapacity(size + sources.length);
+            System.arraycopy(sources, 0, from, size, sources.length);
+            System.arraycopy(targets, 0, to, size, targets.length);
+            if (weights != null) {
+                System.arraycopy(weights, 0, weight, size, weights.length);
+            } else {
+                Arrays.fill(weight, size, size + sources.length, 1.0);
+            }
+            size += sources.length;
+            return this;
+        }
+
+        /**
+         * Builds the graph. Edges are bucketed by source with a counting
+         * sort, then every row is sorted by target and de-duplicated in
+         * parallel.
+         *
+         * @return The new graph.
+         */
+        public CsrGraph build() {
+            int n = vertexCount;
+
+            // Bucket the valid edges by source, keeping insertion order
+            int[] counts = new int[n + 1];
+            for (int i = 0; i < size; i++) {
+                if (valid(i)) {
+                    counts[from[i] + 1]++;
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                counts[v + 1] += counts[v];
+            }
+            int[] rowTargets = new int[counts[n]];
+            double[] rowWeights = new double[counts[n]];
+            int[] fill = Arrays.copyOf(counts, n);
+            for (int i = 0; i < size; i++) {
+                if (valid(i)) {
+                    int e = fill[from[i]]++;
+                    rowTargets[e] = to[i];
+                    rowWeights[e] = weight[i];
+                }
+            }
+
+            // Sort each row and drop duplicate targets
+            int[] unique = new int[n + 1];
+            IntStream.range(0, n).parallel()
+                    .forEach(v -> unique[v + 1] = sortRow(rowTargets, rowWeights, counts[v], counts[v + 1]));
+            for (int v = 0; v < n; v++) {
+                unique[v + 1] += unique[v];
+            }
+
+            // Compact the rows into the final arrays
+            int[] targets = new int[unique[n]];
+            double[] weights = new double[unique[n]];
+            IntStream.range(0, n).parallel().forEach(v -> {
+                int length = unique[v + 1] - unique[v];
+                System.arraycopy(rowTargets, counts[v], targets, unique[v], length);
+                System.arraycopy(rowWeights, counts[v], weights, unique[v], length);
+            });
+            return new CsrGraph(n, unique, targets, weights);
+        }
+
+        /**
+         * Sorts one row by target, keeping the last weight of any repeated
+         * target, and moves the unique entries to the front of the row.
+         *
+         * @return The number of unique targets in the row.
+         */
+        private static int sortRow(int[] targets, double[] weights, int start, int end) {
+            int length = end - start;
+            if (length == 0) {
+                return 0;
+            }
+            // Sort by (target, insertion order) so the last duplicate comes last
+            long[] keys = new long[length];
+            for (int i = 0; i < length; i++) {
+                keys[i] = ((long) targets[start + i] << 32) | i;
+            }
+            Arrays.sort(keys);
+            double[] sortedWeights = new double[length];
+            int count = 0;
+            for (int i = 0; i < length; i++) {
+                int target = (int) (keys[i] >>> 32);
+                double w = weights[start + (int) keys[i]];
+                if (count > 0 && targets[start + count - 1] == target) {
+                    sortedWeights[count - 1] = w;
+                } else {
+                    targets[start + count] = target;
+                    sortedWeights[count] = w;
+                    count++;
+                }
+            }
+            System.arraycopy(sortedWeights, 0, weights, start, count);
+            return count;
+        }
+
+        private boolean valid(int i) {
+            return from[i] >= 0 && from[i] < vertexCount && to[i] >= 0 && to[i] < vertexCount;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > from.length) {
+                int grown = Math.max(capacity, from.length * 2);
+                from = Arrays.copyOf(from, grown);
+                to = Arrays.copyOf(to, grown);
+                weight = Arrays.copyOf(weight, grown);
+            }
+        }
+    }
+}
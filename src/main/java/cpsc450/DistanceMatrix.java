@@ -0,0 +1,221 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Complete distance matrix stored as one double[] row per vertex.
+ *
+ * This is the store that AllPairsShortestPaths writes into. LinKernighan,
+ * HeldKarp and LayeredHeldKarp use its rows as their weight cache directly
+ * instead of copying them, so a closure is computed and stored once. There
+ * is an edge from x to y whenever x != y and the distance is finite. The
+ * matrix is read-only through the Graph interface.
+ */
+public class DistanceMatrix implements Graph {
+
+    private final double[][] rows;
+
+    /**
+     * Wraps existing rows without copying them.
+     * @param rows The distances; rows[x][y] is the distance from x to y
+     */
+    DistanceMatrix(double[][] rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Returns the rows shared with this matrix. Callers must not modify them.
+     */
+    double[][] rows() {
+        return rows;
+    }
+
+    /**
+     * DistanceMatrix is read-only.
+     * @throws GraphException always
+     */
+    @Override
+    public void addEdge(int x, int y) {
+        throw new GraphException("DistanceMatrix is read-only");
+    }
+
+    /**
+     * DistanceMatrix is read-only.
+     * @throws GraphException always
+     */
+    @Override
+    public void removeEdge(int x, int y) {
+        throw new GraphException("DistanceMatrix is read-only");
+    }
+
+    /**
+     * Get the vertices at a finite distance from a given vertex.
+     */
+    @Override
+    public Set<Integer> out(int x) {
+        Set<Integer> outgoing = new HashSet<>();
+        forEachOut(x, outgoing::add);
+        return outgoing;
+    }
+
+    /**
+     * Get the vertices from which a given vertex is at a finite distance.
+     */
+    @Override
+    public Set<Integer> in(int x) {
+        Set<Integer> incoming = new HashSet<>();
+        if (isValidVertex(x)) {
+            for (int y = 0; y < rows.length; y++) {
+                if (hasEdge(y, x)) {
+                    incoming.add(y);
+                }
+            }
+        }
+        return incoming;
+    }
+
+    /**
+     * Get the set of adjacent vertices to a given vertex.
+     */
+    @Override
+    public Set<Integer> adj(int x) {
+        Set<Integer> adjacent = out(x);
+        adjacent.addAll(in(x));
+        return adjacent;
+    }
+
+    /**
+     * Check if vertex y is at a finite distance from vertex x.
+     */
+    @Override
+    public boolean hasEdge(int x, int y) {
+        return isValidVertex(x) && isValidVertex(y) && x != y && rows[x][y] != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Check if a vertex exists in the graph.
+     */
+    @Override
+    public boolean hasVertex(int x) {
+        return isValidVertex(x);
+    }
+
+    /**
+     * Get the number of vertices in the graph.
+     */
+    @Override
+    public int vertices() {
+        return rows.length;
+    }
+
+    /**
+     * Get the number of pairs at a finite distance.
+     */
+    @Override
+    public int edges() {
+        int count = 0;
+        for (int x = 0; x < rows.length; x++) {
+            count += outDegree(x);
+        }
+        return count;
+    }
+
+    /**
+     * Returns a list of all pairs at a finite distance, with the distances.
+     */
+    @Override
+    public List<Edge> getAllEdges() {
+        List<Edge> edges = new ArrayList<>();
+        for (int x = 0; x < rows.length; x++) {
+            final int source = x;
+            forEachOut(x, y -> edges.add(new Edge(source, y, rows[source][y])));
+        }
+        return edges;
+    }
+
+    /**
+     * Get the distance from x to y, or positive infinity if there is none.
+     */
+    @Override
+    public double weight(int x, int y) {
+        return hasEdge(x, y) ? rows[x][y] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the number of vertices in the graph.
+     */
+    @Override
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Returns an array of neighbors for the given node.
+     * Neighbors are all the vertices adjacent to the current node (both outgoing and incoming).
+     */
+    @Override
+    public int[] getNeighbors(int currentNode) {
+        if (!isValidVertex(currentNode)) {
+            throw new IllegalArgumentException("Invalid node index");
+        }
+        return adj(currentNode).stream().mapToInt(i -> i).toArray();
+    }
+
+    /**
+     * Get the number of vertices at a finite distance from a given vertex.
+     */
+    @Override
+    public int outDegree(int x) {
+        int degree = 0;
+        if (isValidVertex(x)) {
+            for (int y = 0; y < rows.length; y++) {
+                if (hasEdge(x, y)) {
+                    degree++;
+                }
+            }
+        }
+        return degree;
+    }
+
+    /**
+     * Walk the vertices at a finite distance from a given vertex.
+     */
+    @Override
+    public void forEachOut(int x, IntConsumer action) {
+        if (isValidVertex(x)) {
+            for (int y = 0; y < rows.length; y++) {
+                if (hasEdge(x, y)) {
+                    action.accept(y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy a distance row into dst.
+     */
+    @Override
+    public void copyWeightRow(int x, double[] dst) {
+        if (isValidVertex(x)) {
+            System.arraycopy(rows[x], 0, dst, 0, rows.length);
+        } else {
+            Arrays.fill(dst, 0, rows.length, Double.POSITIVE_INFINITY);
+        }
+    }
+
+    private boolean isValidVertex(int v) {
+        return v >= 0 && v < rows.length;
+    }
+}
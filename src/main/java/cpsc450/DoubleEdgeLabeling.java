@@ -0,0 +1,51 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+/**
+ * Edge labeling that stores a double per edge in an array aligned with the
+ * edges of the graph. Unlike EdgeLabeling, lookups do not box or allocate.
+ */
+public class DoubleEdgeLabeling extends PrimitiveEdgeLabeling {
+    private final double[] values;
+
+    /**
+     * Creates an empty labeling over the current edges of a graph.
+     *
+     * @param g The graph whose edges are labeled.
+     */
+    public DoubleEdgeLabeling(Graph g) {
+        super(g);
+        this.values = new double[edgeCount()];
+    }
+
+    /**
+     * Labels the edge from u to v.
+     *
+     * @throws GraphException if there is no edge from u to v.
+     */
+    public void addLabel(int u, int v, double label) {
+        int e = indexOf(u, v);
+        values[e] = label;
+        markLabeled(e);
+    }
+
+    /**
+     * Returns the label of the edge from u to v, or the given default if
+     * the edge has no label.
+     */
+    public double getLabel(int u, int v, double defaultValue) {
+        int e = find(u, v);
+        return e >= 0 && isLabeled(e) ? values[e] : defaultValue;
+    }
+
+    @Override
+    double weightAt(int e) {
+        return values[e];
+    }
+}
@@ -26,6 +26,7 @@ public class EdgeLabeling<T> {
     }
 
     public Optional<T> getLabel(int u, int v) {
-        return Optional.ofNullable(labels.getOrDefault(u, new HashMap<>()).get(v));
+        Map<Integer, T> row = labels.get(u);
+        return Optional.ofNullable(row == null ? null : row.get(v));
     }
 }
@@ -16,6 +16,7 @@ import org.jfree.data.xy.XYSeriesCollection;
 import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -32,41 +33,50 @@ public class FinalProject {
 
     /**
      * Adds labels to the graph edges for consistency with the test cases.
+     * Each undirected edge gets one weight, stored in both directions when
+     * both edges exist.
      * 
      * @param g The graph to label.
+     * @return The labels, whose asGraph() view gives the labeled weights.
      */
-    static void addEdgeLabels(Graph g) {
-        EdgeLabeling<Integer> l = new EdgeLabeling<>(g);
+    static IntEdgeLabeling addEdgeLabels(Graph g) {
+        IntEdgeLabeling l = new IntEdgeLabeling(g);
         int weight = 10; // Start with a base weight
+        NeighborCursor cursor = g.outCursor();
         for (int from = 0; from < g.vertices(); from++) {
-            for (int to : g.out(from)) {
+            for (cursor.reset(from); cursor.hasNext();) {
+                int to = cursor.next();
                 if (from < to) { // Avoid labeling duplicate edges in undirected graphs
-                    if (l.getLabel(from, to) == null) { // Only add a label if not already present
+                    if (!l.hasLabel(from, to)) { // Only add a label if not already present
                         l.addLabel(from, to, weight);
+                        if (g.hasEdge(to, from)) {
+                            l.addLabel(to, from, weight);
+                        }
                     }
                     weight += 5; // Increment weight
                 }
             }
         }
+        return l;
     }
 
+    // Warmup and measured runs behind each point of the charts
+    private static final Benchmark BENCHMARK = new Benchmark(1, 5);
+
     /**
      * Measures the time for the Lin-Kernighan algorithm on a graph.
      * 
      * @param g       The graph to process.
      * @param digraph If true, treats the graph as directed.
-     * @return The time in milliseconds.
+     * @return The median time in milliseconds.
      */
-    static long timeLinKernighan(Graph g, boolean digraph) {
+    static double timeLinKernighan(Graph g, boolean digraph) {
         try {
-            // Ensure all edges are labeled
-            addEdgeLabels(g);
-
-            LinKernighan lk = new LinKernighan(g);
-            long start = System.currentTimeMillis();
-            lk.run();
-            long end = System.currentTimeMillis();
-            return end - start;
+            // Label all edges and solve over the labeled weights
+            Graph labeled = addEdgeLabels(g).asGraph();
+
+            return BENCHMARK.run("lk", labeled, Double.NaN, "lk", Benchmark.SOLVERS.get("lk"), 1)
+                    .latencyMillis(50);
         } catch (Exception e) {
             e.printStackTrace();
             return -1; // Return -1 on error
@@ -166,6 +176,31 @@ public class FinalProject {
         return graph;
     }
 
+    /**
+     * Create a dense graph with all vertices connected to each other
+     * without self edges. The edges are generated as primitive arrays and
+     * handed to a CsrGraph builder in one call, which avoids the n^2
+     * boxed addEdge calls of createDenseAdjList.
+     * 
+     * @param n The size of the graph in terms of the number of vertices.
+     * @return The CSR graph.
+     */
+    static Graph createDenseCsrGraph(int n) {
+        int edges = n * (n - 1);
+        int[] sources = new int[edges];
+        int[] targets = new int[edges];
+        int e = 0;
+        for (int x = 0; x < n; ++x)
+            for (int y = 0; y < n; ++y)
+                if (x != y) {
+                    sources[e] = x;
+                    targets[e] = y;
+                    e++;
+                }
+
+        return new CsrGraph.Builder(n).addEdges(sources, targets, null).build();
+    }
+
     /**
      * Creates a chart from the test results.
      * 
@@ -174,11 +209,24 @@ public class FinalProject {
      * @param file   File path to save the chart as PNG.
      */
     static void chart(XYSeries[] series, String title, String file) throws Exception {
+        chart(series, title, "Vertices", "Time (ms)", file);
+    }
+
+    /**
+     * Creates a chart from the test results with the given axis labels.
+     * 
+     * @param series Array of XYSeries representing the data.
+     * @param title  Title of the chart.
+     * @param xLabel Label of the x axis.
+     * @param yLabel Label of the y axis.
+     * @param file   File path to save the chart as PNG.
+     */
+    static void chart(XYSeries[] series, String title, String xLabel, String yLabel, String file) throws Exception {
         XYSeriesCollection ds = new XYSeriesCollection();
         for (XYSeries s : series)
             ds.addSeries(s);
 
-        JFreeChart chart = ChartFactory.createXYLineChart(title, "Vertices", "Time (ms)", ds);
+        JFreeChart chart = ChartFactory.createXYLineChart(title, xLabel, yLabel, ds);
         XYPlot plot = (XYPlot) chart.getPlot();
         plot.setBackgroundPaint(new Color(220, 220, 220));
 
@@ -198,17 +246,12 @@ public class FinalProject {
      * time.
      * 
      * @param g The graph on which the Held-Karp algorithm will be run.
-     * @return The execution time in milliseconds, or -1 if an error occurs.
+     * @return The median execution time in milliseconds, or -1 if an error occurs.
      */
-    static long timeHeldKarp(Graph g) {
+    static double timeHeldKarp(Graph g) {
         try {
-            HeldKarp hk = new HeldKarp(g);
-            long start = System.currentTimeMillis();
-            List<Integer> tour = hk.run();
-            long end = System.currentTimeMillis();
-
-            System.out.println("Held-Karp tour: " + tour); // Optional debugging output
-            return end - start;
+            return BENCHMARK.run("hk", g, Double.NaN, "hk", Benchmark.SOLVERS.get("hk"), 1)
+                    .latencyMillis(50);
         } catch (Exception e) {
             e.printStackTrace();
             return -1; // Return -1 on error
@@ -230,11 +273,10 @@ public class FinalProject {
         for (int n = STEP; n <= END; n += STEP) {
             // Create graphs
             Graph graph = createDenseAdjList(n);
-            addEdgeLabels(graph); // Ensure edges are labeled
 
-            // Measure performance
-            long lkTime = timeLinKernighan(graph, false);
-            long hkTime = timeHeldKarp(graph);
+            // Measure performance, with both solvers on the labeled weights
+            double lkTime = timeLinKernighan(graph, false);
+            double hkTime = timeHeldKarp(addEdgeLabels(graph).asGraph());
 
             // Add results to series
             lkSeries.add(n, lkTime);
@@ -242,7 +284,7 @@ public class FinalProject {
 
             // Print timings
             System.out.printf(
-                    "Vertices: %d | Lin-Kernighan: %dms | Held-Karp: %dms%n",
+                    "Vertices: %d | Lin-Kernighan: %.3fms | Held-Karp: %.3fms%n",
                     n, lkTime, hkTime);
         }
 
@@ -272,17 +314,15 @@ public class FinalProject {
         for (int n = STEP; n <= END; n += STEP) {
             // Sparse Graphs
             Graph sparseGraph = createSparseAdjList(n);
-            addEdgeLabels(sparseGraph); // Ensure all edges are labeled
 
-            long lkSparseTime = timeLinKernighan(sparseGraph, false);
+            double lkSparseTime = timeLinKernighan(sparseGraph, false);
 
             lkSparseSeries.add(n, lkSparseTime);
 
             // Dense Graphs
-            Graph denseGraph = createDenseAdjList(n);
-            addEdgeLabels(denseGraph); // Ensure all edges are labeled
+            Graph denseGraph = createDenseCsrGraph(n);
 
-            long lkDenseTime = timeLinKernighan(denseGraph, false);
+            double lkDenseTime = timeLinKernighan(denseGraph, false);
 
             lkDenseSeries.add(n, lkDenseTime);
 
@@ -301,11 +341,17 @@ public class FinalProject {
  * 
  * This method invokes the runAlgorithmTests and runLinKernighanTests methods to execute 
  * performance tests and display results for both Held-Karp and Lin-Kernighan algorithms.
+ * With "benchmark" as the first argument it runs the Benchmark suite instead, passing
+ * it the remaining arguments.
  * 
- * @param args Command-line arguments (not used in this implementation).
+ * @param args Command-line arguments, empty or "benchmark" followed by Benchmark options.
  */
     public static void main(String[] args) {
         try {
+            if (args.length > 0 && args[0].equals("benchmark")) {
+                Benchmark.main(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
             runAlgorithmTests();
             runLinKernighanTests();
         } catch (Exception e) {
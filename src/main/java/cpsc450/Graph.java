@@ -10,6 +10,7 @@ package cpsc450;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.IntConsumer;
 
 /** 
  * A generic digraph interface. Can simulate undirected graphs via
@@ -103,5 +104,50 @@ public interface Graph {
     int size();
 
     int[] getNeighbors(int currentNode);
+
+    /**
+     * Returns the number of out vertices of x, or 0 if x is an invalid
+     * vertex.
+     * @param x The vertex to count out vertices of.
+     * @return The out degree of x.
+     */
+    default int outDegree(int x) {
+        return out(x).size();
+    }
+
+    /**
+     * Calls action once for every out vertex of x. If x is an invalid
+     * vertex, nothing is called. Implementations should walk their own
+     * storage rather than build a set.
+     * @param x The vertex to find out vertices of.
+     * @param action The action to call with each out vertex.
+     */
+    default void forEachOut(int x, IntConsumer action) {
+        for (int y : out(x)) {
+            action.accept(y);
+        }
+    }
+
+    /**
+     * Returns a new cursor over out vertices. The cursor can be reset to
+     * any vertex and reused for as many vertices as needed.
+     * @return A neighbour cursor for this graph.
+     */
+    default NeighborCursor outCursor() {
+        return new NeighborCursor.Buffered(this);
+    }
+
+    /**
+     * Copies the weights of all edges from x into dst, so that dst[y] is
+     * weight(x, y). dst must hold at least vertices() entries.
+     * @param x The start (from) vertex of the edges.
+     * @param dst The array to fill.
+     */
+    default void copyWeightRow(int x, double[] dst) {
+        int n = vertices();
+        for (int y = 0; y < n; y++) {
+            dst[y] = weight(x, y);
+        }
+    }
 }
 
@@ -1,129 +1,351 @@
 /**
  * CPSC 450, Final Project
- * 
+ *
  * NAME: Isabelle May
  * DATE: Fall 2024
  */
 
- package cpsc450;
+package cpsc450;
 
- import java.util.ArrayList;
- import java.util.List;
- import java.util.HashMap;
- import java.util.Map;
- import java.util.Objects;
- 
- /**
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
  * HeldKarp class implements the exact solution to the Travelling Salesman Problem (TSP).
+ *
+ * The tour always starts at vertex 0, so the DP only runs over subsets of the
+ * remaining m = n - 1 vertices. The table is a flat array indexed by
+ * mask * m + pos, where bit j of mask and pos j both refer to vertex j + 1.
  */
- public class HeldKarp {
- 
-     private Graph graph;
-     private double[][] weightCache;
-     private Map<State, Double> memo;
-     private Map<State, Integer> parent;
- 
+public class HeldKarp {
+
+    // Largest m for which the 2^m * m table still fits in a Java array
+    static final int MAX_TABLE_VERTICES = 26;
+    // Number of masks a parallel task fills before it stops splitting
+    private static final int LAYER_GRAIN = 1024;
+
+    private Graph graph;
+    private double[][] weightCache;
+    private double tourCost = Double.NaN;
+
     /**
      * Constructor for the HeldKarp class
      * @param graph The graph representing the TSP problem
      */
-     public HeldKarp(Graph graph) {
-         this.graph = graph;
-         this.weightCache = new double[graph.vertices()][graph.vertices()];
-         for (int i = 0; i < graph.vertices(); i++) {
-             for (int j = 0; j < graph.vertices(); j++) {
-                 weightCache[i][j] = graph.weight(i, j);
-             }
-         }
-         this.memo = new HashMap<>();
-         this.parent = new HashMap<>();
-     }
- 
-     /**
+    public HeldKarp(Graph graph) {
+        this.graph = graph;
+        if (graph instanceof DistanceMatrix) {
+            this.weightCache = ((DistanceMatrix) graph).rows(); // Shared, never written
+        } else {
+            this.weightCache = new double[graph.vertices()][graph.vertices()];
+            for (int i = 0; i < graph.vertices(); i++) {
+                graph.copyWeightRow(i, weightCache[i]);
+            }
+        }
+    }
+
+    /**
      * Main function to run the Held-Karp algorithm
      * @return A List representing the optimal tour
      */
-     public List<Integer> run() {
-         int n = graph.vertices();
-         List<Integer> tour = new ArrayList<>();
-         double minCost = tsp(1, 0, n);
-         reconstructTour(tour, n);
-         return tour;
-     }
- 
-      /**
-     * Recursive function to solve TSP using dynamic programming
-     * @param mask A bitmask representing the set of visited vertices
-     * @param pos The current position (vertex)
-     * @param n The total number of vertices
-     * @return The minimum cost to visit all vertices from the current position
+    public List<Integer> run() {
+        return solve(null);
+    }
+
+    /**
+     * Runs the Held-Karp algorithm with each subset-size layer of the table
+     * filled in parallel on the given pool.
+     * @param pool The pool that fills the layers
+     * @return A List representing the optimal tour
+     */
+    public List<Integer> runParallel(ForkJoinPool pool) {
+        return solve(pool);
+    }
+
+    /**
+     * Solves the instance, filling the table sequentially if pool is null
+     * and layer by layer on the pool otherwise.
+     * @param pool The pool that fills the layers, or null
+     * @return A List representing the optimal tour
+     */
+    private List<Integer> solve(ForkJoinPool pool) {
+        int n = graph.vertices();
+        if (n == 1) {
+            tourCost = 0;
+            return new ArrayList<>(List.of(0));
+        }
+        int m = n - 1;
+        if (m > MAX_TABLE_VERTICES) {
+            throw new GraphException("Held-Karp supports at most " + (MAX_TABLE_VERTICES + 1) + " vertices");
+        }
+
+        double[] dp = pool == null ? fillTable(weightCache, m) : fillTableParallel(m, pool);
+        double[] closing = new double[m];
+        for (int j = 0; j < m; j++) {
+            closing[j] = weightCache[j + 1][0];
+        }
+        double[] cost = new double[1];
+        int[] path = reconstructPath(dp, weightCache, m, closing, cost);
+        tourCost = cost[0];
+
+        List<Integer> tour = new ArrayList<>(m + 1);
+        tour.add(0);
+        for (int v : path) {
+            tour.add(v);
+        }
+        return tour;
+    }
+
+    /**
+     * Finds the cheapest ordering of a path with fixed endpoints: the first
+     * and last vertices stay in place and the vertices between them are
+     * reordered optimally.
+     * @param path The vertices of the path, with at most MAX_TABLE_VERTICES + 1 in between
+     * @return The optimal path with the same endpoints
+     */
+    public List<Integer> optimizePath(List<Integer> path) {
+        int[] order = optimizePath(weightCache, path.stream().mapToInt(Integer::intValue).toArray());
+        List<Integer> result = new ArrayList<>(order.length);
+        for (int v : order) {
+            result.add(v);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the cheapest ordering of a path with fixed endpoints over the
+     * given weight matrix. The path is relabelled so that its first vertex
+     * plays the role of the start vertex, and the DP closes onto its last
+     * vertex instead of returning to the start.
+     * @param weights The weight matrix
+     * @param path The vertices of the path
+     * @return The optimal path with the same endpoints
+     */
+    static int[] optimizePath(double[][] weights, int[] path) {
+        int m = path.length - 2;
+        if (m < 2) {
+            return path.clone();
+        }
+        if (m > MAX_TABLE_VERTICES) {
+            throw new GraphException("Held-Karp supports at most " + MAX_TABLE_VERTICES + " inner path vertices");
+        }
+
+        // Local index 0 is the start of the path, 1..m are the inner vertices
+        double[][] local = new double[m + 1][m + 1];
+        double[] closing = new double[m];
+        int end = path[m + 1];
+        for (int i = 0; i <= m; i++) {
+            for (int j = 0; j <= m; j++) {
+                local[i][j] = weights[path[i]][path[j]];
+            }
+            if (i > 0) {
+                closing[i - 1] = weights[path[i]][end];
+            }
+        }
+
+        double[] dp = fillTable(local, m);
+        int[] inner = reconstructPath(dp, local, m, closing, new double[1]);
+        int[] result = new int[m + 2];
+        result[0] = path[0];
+        for (int k = 0; k < m; k++) {
+            result[k + 1] = path[inner[k]];
+        }
+        result[m + 1] = end;
+        return result;
+    }
+
+    /**
+     * Returns the cost of the tour found by the last call to run().
+     * @return The optimal tour cost, or NaN if run() has not been called
+     */
+    public double getTourCost() {
+        return tourCost;
+    }
+
+    /**
+     * Fills the DP table bottom-up. Every proper subset of a mask is
+     * numerically smaller than the mask, so visiting masks in increasing
+     * order guarantees that all predecessor states are final. Entries for
+     * end vertices outside the mask stay at infinity, which lets the inner
+     * minimum run over the whole previous row without branching.
+     * @param m The number of vertices other than the start vertex
+     * @return The filled table
      */
-     private double tsp(int mask, int pos, int n) {
-         State state = new State(mask, pos);
-         if (memo.containsKey(state)) {
-             return memo.get(state);
-         }
- 
-         if (mask == (1 << n) - 1) {
-             return weightCache[pos][0];
-         }
- 
-         double minCost = Double.MAX_VALUE;
-         for (int next = 0; next < n; next++) {
-             if ((mask & (1 << next)) == 0) {
-                 double newCost = weightCache[pos][next] + tsp(mask | (1 << next), next, n);
-                 if (newCost < minCost) {
-                     minCost = newCost;
-                     parent.put(state, next);
-                 }
-             }
-         }
- 
-         memo.put(state, minCost);
-         return minCost;
-     }
- 
-     /**
-     * Reconstructs the optimal tour from the parent map
-     * @param tour The list to store the optimal tour
-     * @param n The total number of vertices
+    private static double[] fillTable(double[][] weights, int m) {
+        double[][] weightsIn = transposedWeights(weights, m);
+        double[] dp = newTable(weights, m);
+        for (int mask = 1; mask < (1 << m); mask++) {
+            if ((mask & (mask - 1)) != 0) {
+                fillRow(dp, weightsIn, m, mask);
+            }
+        }
+        return dp;
+    }
+
+    /**
+     * Fills the DP table one subset-size layer at a time. All masks of
+     * size k depend only on masks of size k - 1, so each layer is split
+     * into contiguous ranges of colex ranks and filled by independent
+     * tasks. Every mask owns its own row, so tasks never write to the
+     * same location.
+     * @param m The number of vertices other than the start vertex
+     * @param pool The pool that fills the layers
+     * @return The filled table
      */
-     private void reconstructTour(List<Integer> tour, int n) {
-         int mask = 1;
-         int pos = 0;
-         tour.add(pos);
- 
-         for (int i = 1; i < n; i++) {
-             State state = new State(mask, pos);
-             pos = parent.get(state);
-             tour.add(pos);
-             mask |= (1 << pos);
-         }
-     }
- 
-
-    private static class State {
-    int mask, pos;
-
-     /**
-     * State class represents the state of the TSP problem during recursion
+    private double[] fillTableParallel(int m, ForkJoinPool pool) {
+        double[][] weightsIn = transposedWeights(weightCache, m);
+        double[] dp = newTable(weightCache, m);
+        Subsets subsets = new Subsets(m);
+        for (int k = 2; k <= m; k++) {
+            pool.invoke(new LayerTask(dp, weightsIn, m, k, subsets, 0, subsets.choose(m, k)));
+        }
+        return dp;
+    }
+
+    /**
+     * Allocates the DP table and fills in the single vertex paths.
+     * @param weights The weight matrix
+     * @param m The number of vertices other than the start vertex
+     * @return The table with only the base case filled
      */
-    State(int mask, int pos) {
-        this.mask = mask;
-        this.pos = pos;
+    private static double[] newTable(double[][] weights, int m) {
+        double[] dp = new double[(1 << m) * m];
+        Arrays.fill(dp, Double.POSITIVE_INFINITY);
+        for (int j = 0; j < m; j++) {
+            dp[(1 << j) * m + j] = weights[0][j + 1];
+        }
+        return dp;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        State state = (State) o;
-        return mask == state.mask && pos == state.pos;
+    /**
+     * Fills the row of the table for one mask with at least two vertices.
+     * @param dp The table
+     * @param weightsIn The transposed weights
+     * @param m The number of vertices other than the start vertex
+     * @param mask The mask to fill
+     */
+    private static void fillRow(double[] dp, double[][] weightsIn, int m, int mask) {
+        int row = mask * m;
+        for (int j = 0; j < m; j++) {
+            if ((mask & (1 << j)) == 0) {
+                continue;
+            }
+            int prevRow = (mask ^ (1 << j)) * m;
+            dp[row + j] = Kernels.minPlus(dp, prevRow, weightsIn[j], m);
+        }
     }
 
-    @Override
-    public int hashCode() {
-        return Objects.hash(mask, pos);
+    /**
+     * Returns the weights into each non-start vertex, so that the inner
+     * loop of the DP reads a contiguous row.
+     * @param weights The weight matrix
+     * @param m The number of vertices other than the start vertex
+     * @return weightsIn[j][i] is the weight from vertex i + 1 to vertex j + 1
+     */
+    private static double[][] transposedWeights(double[][] weights, int m) {
+        double[][] weightsIn = new double[m][m];
+        for (int j = 0; j < m; j++) {
+            for (int i = 0; i < m; i++) {
+                weightsIn[j][i] = weights[i + 1][j + 1];
+            }
+        }
+        return weightsIn;
+    }
+
+    /**
+     * Reconstructs the optimal path by walking the table backwards from
+     * the full mask. At each step the predecessor is the vertex that
+     * attains the stored minimum, so no parent table is needed.
+     * @param dp The filled table
+     * @param weights The weight matrix the table was filled from
+     * @param m The number of vertices other than the start vertex
+     * @param closing closing[j] is the cost of finishing after vertex j + 1
+     * @param cost The cost of the optimal path (output, one element)
+     * @return The vertices 1..m in optimal order after the start vertex
+     */
+    private static int[] reconstructPath(double[] dp, double[][] weights, int m, double[] closing, double[] cost) {
+        int full = (1 << m) - 1;
+
+        // Pick the cheapest way to finish
+        int last = 0;
+        double best = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < m; j++) {
+            double total = dp[full * m + j] + closing[j];
+            if (total < best) {
+                best = total;
+                last = j;
+            }
+        }
+        cost[0] = best;
+
+        int[] path = new int[m];
+        int mask = full;
+        for (int k = m - 1; k >= 0; k--) {
+            path[k] = last + 1;
+            int prev = mask ^ (1 << last);
+            if (prev == 0) {
+                break;
+            }
+            double target = dp[mask * m + last];
+            int next = -1;
+            double nextCost = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < m; i++) {
+                if ((prev & (1 << i)) == 0) {
+                    continue;
+                }
+                double total = dp[prev * m + i] + weights[i + 1][last + 1];
+                if (total == target) {
+                    next = i;
+                    break;
+                }
+                if (total < nextCost) {
+                    nextCost = total;
+                    next = i;
+                }
+            }
+            mask = prev;
+            last = next;
+        }
+        return path;
     }
+
+    /**
+     * Fills the masks of one layer whose colex ranks fall in [start, end),
+     * splitting the range in half until it is small enough.
+     */
+    private static class LayerTask extends RecursiveAction {
+        private final double[] dp;
+        private final double[][] weightsIn;
+        private final int m, k;
+        private final Subsets subsets;
+        private final long start, end;
+
+        LayerTask(double[] dp, double[][] weightsIn, int m, int k, Subsets subsets, long start, long end) {
+            this.dp = dp;
+            this.weightsIn = weightsIn;
+            this.m = m;
+            this.k = k;
+            this.subsets = subsets;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= LAYER_GRAIN) {
+                long mask = subsets.unrank(start, k);
+                for (long r = start; r < end; r++) {
+                    fillRow(dp, weightsIn, m, (int) mask);
+                    mask = Subsets.next(mask);
+                }
+                return;
+            }
+            long mid = (start + end) >>> 1;
+            invokeAll(new LayerTask(dp, weightsIn, m, k, subsets, start, mid),
+                    new LayerTask(dp, weightsIn, m, k, subsets, mid, end));
+        }
     }
 }
@@ -0,0 +1,258 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Seeded generators for benchmark instances.
+ *
+ * Every generator takes an explicit seed, so the same arguments always
+ * give the same instance. The geometric generators place points in a
+ * SIDE x SIDE square and return their Euclidean distance matrix:
+ *
+ *   uniform   - points spread uniformly over the square
+ *   clustered - points drawn around a few random centres
+ *   grid      - a square lattice with the vertices numbered in random order
+ *   road      - uniform points joined to their nearest neighbours by
+ *               roads that are a little longer than the straight line,
+ *               with distances taken along the road network
+ */
+public class InstanceGenerator {
+
+    static final double SIDE = 1000;       // Side of the square the points are placed in
+    static final int ROAD_NEIGHBORS = 3;   // Nearest points each road-network point is joined to
+    static final double ROAD_DETOUR = 0.3; // Largest extra length of a road over the straight line
+
+    /**
+     * Builds an instance by name.
+     * @param kind "uniform", "clustered", "grid" or "road"
+     * @param n    The number of vertices
+     * @param seed The seed
+     * @return The instance
+     */
+    public static DistanceMatrix generate(String kind, int n, long seed) {
+        switch (kind) {
+            case "uniform":
+                return uniform(n, seed);
+            case "clustered":
+                return clustered(n, seed);
+            case "grid":
+                return grid(n, seed);
+            case "road":
+                return roadLike(n, seed);
+            default:
+                throw new IllegalArgumentException("Unknown instance kind " + kind);
+        }
+    }
+
+    /**
+     * Builds an instance of uniformly random points.
+     * @param n    The number of vertices
+     * @param seed The seed
+     * @return The Euclidean distances between the points
+     */
+    public static DistanceMatrix uniform(int n, long seed) {
+        return euclidean(uniformPoints(n, seed));
+    }
+
+    /**
+     * Builds an instance of points around roughly sqrt(n) / 2 centres.
+     * @param n    The number of vertices
+     * @param seed The seed
+     * @return The Euclidean distances between the points
+     */
+    public static DistanceMatrix clustered(int n, long seed) {
+        return euclidean(clusteredPoints(n, seed));
+    }
+
+    /**
+     * Builds an instance of lattice points.
+     * @param n    The number of vertices
+     * @param seed The seed
+     * @return The Euclidean distances between the points
+     */
+    public static DistanceMatrix grid(int n, long seed) {
+        return euclidean(gridPoints(n, seed));
+    }
+
+    /**
+     * Builds a road-network instance. Every point gets roads to its
+     * ROAD_NEIGHBORS nearest points, plus the edges of a minimum spanning
+     * tree so that the network is connected. Each road is up to ROAD_DETOUR
+     * longer than the straight line, and the distance between two points
+     * is the length of the shortest route.
+     * @param n    The number of vertices
+     * @param seed The seed
+     * @return The shortest route lengths between the points
+     */
+    public static DistanceMatrix roadLike(int n, long seed) {
+        Random random = new Random(seed);
+        double[][] points = uniformPoints(n, random.nextLong());
+        CsrGraph.Builder roads = new CsrGraph.Builder(n);
+        for (int x = 0; x < n; x++) {
+            for (int y : nearest(points, x, ROAD_NEIGHBORS)) {
+                addRoad(roads, points, x, y, random);
+            }
+        }
+        int[] parent = spanningTree(points);
+        for (int x = 1; x < n; x++) {
+            addRoad(roads, points, x, parent[x], random);
+        }
+        return new AllPairsShortestPaths(roads.build()).run();
+    }
+
+    /**
+     * Places n points uniformly in the square.
+     */
+    static double[][] uniformPoints(int n, long seed) {
+        Random random = new Random(seed);
+        double[][] points = new double[n][2];
+        for (double[] p : points) {
+            p[0] = random.nextDouble() * SIDE;
+            p[1] = random.nextDouble() * SIDE;
+        }
+        return points;
+    }
+
+    /**
+     * Places n points normally distributed around random centres.
+     */
+    static double[][] clusteredPoints(int n, long seed) {
+        Random random = new Random(seed);
+        int clusters = Math.max(1, (int) Math.sqrt(n) / 2);
+        double spread = SIDE / (4 * Math.sqrt(clusters));
+        double[][] centres = new double[clusters][2];
+        for (double[] c : centres) {
+            c[0] = random.nextDouble() * SIDE;
+            c[1] = random.nextDouble() * SIDE;
+        }
+        double[][] points = new double[n][2];
+        for (double[] p : points) {
+            double[] c = centres[random.nextInt(clusters)];
+            p[0] = clamp(c[0] + random.nextGaussian() * spread);
+            p[1] = clamp(c[1] + random.nextGaussian() * spread);
+        }
+        return points;
+    }
+
+    /**
+     * Places n points on the smallest square lattice that holds them, in a
+     * random order.
+     */
+    static double[][] gridPoints(int n, long seed) {
+        Random random = new Random(seed);
+        int side = (int) Math.ceil(Math.sqrt(n));
+        double spacing = SIDE / Math.max(1, side);
+        int[] cells = new int[side * side];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        for (int i = cells.length - 1; i > 0; i--) { // Fisher-Yates
+            int j = random.nextInt(i + 1);
+            int swap = cells[i];
+            cells[i] = cells[j];
+            cells[j] = swap;
+        }
+        double[][] points = new double[n][2];
+        for (int i = 0; i < n; i++) {
+            points[i][0] = (cells[i] % side) * spacing;
+            points[i][1] = (cells[i] / side) * spacing;
+        }
+        return points;
+    }
+
+    /**
+     * Builds the Euclidean distance matrix of a set of points.
+     * @param points The points, one {x, y} pair per vertex
+     * @return The distances, with no self edges
+     */
+    static DistanceMatrix euclidean(double[][] points) {
+        int n = points.length;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int x = 0; x < n; x++) {
+            xs[x] = points[x][0];
+            ys[x] = points[x][1];
+        }
+        double[][] d = new double[n][n];
+        for (int x = 0; x < n; x++) {
+            Kernels.euclideanRow(xs, ys, x, d[x]);
+            d[x][x] = Double.POSITIVE_INFINITY;
+        }
+        return new DistanceMatrix(d);
+    }
+
+    private static double distance(double[][] points, int x, int y) {
+        return Math.hypot(points[x][0] - points[y][0], points[x][1] - points[y][1]);
+    }
+
+    private static double clamp(double coordinate) {
+        return Math.max(0, Math.min(SIDE, coordinate));
+    }
+
+    /**
+     * Adds a two-way road between x and y, up to ROAD_DETOUR longer than
+     * the straight line.
+     */
+    private static void addRoad(CsrGraph.Builder roads, double[][] points, int x, int y, Random random) {
+        double length = distance(points, x, y) * (1 + random.nextDouble() * ROAD_DETOUR);
+        length = Math.max(length, Double.MIN_NORMAL); // Coincident points still need a positive road
+        roads.addEdge(x, y, length);
+        roads.addEdge(y, x, length);
+    }
+
+    /**
+     * Returns the k points nearest to x.
+     */
+    private static int[] nearest(double[][] points, int x, int k) {
+        Integer[] order = new Integer[points.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(distance(points, x, a), distance(points, x, b)));
+        int[] result = new int[Math.min(k, points.length - 1)];
+        for (int i = 0, j = 0; j < result.length; i++) {
+            if (order[i] != x) {
+                result[j++] = order[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds a Euclidean minimum spanning tree with Prim's algorithm.
+     * @return The parent of every point other than 0
+     */
+    private static int[] spanningTree(double[][] points) {
+        int n = points.length;
+        int[] parent = new int[n];
+        double[] reach = new double[n];
+        boolean[] inTree = new boolean[n];
+        Arrays.fill(reach, Double.POSITIVE_INFINITY);
+        reach[0] = 0;
+        for (int step = 0; step < n; step++) {
+            int u = -1;
+            for (int v = 0; v < n; v++) {
+                if (!inTree[v] && (u < 0 || reach[v] < reach[u])) {
+                    u = v;
+                }
+            }
+            inTree[u] = true;
+            for (int v = 0; v < n; v++) {
+                double d = distance(points, u, v);
+                if (!inTree[v] && d < reach[v]) {
+                    reach[v] = d;
+                    parent[v] = u;
+                }
+            }
+        }
+        return parent;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+/**
+ * Edge labeling that stores an int per edge in an array aligned with the
+ * edges of the graph. Unlike EdgeLabeling, lookups do not box or allocate.
+ */
+public class IntEdgeLabeling extends PrimitiveEdgeLabeling {
+    private final int[] values;
+
+    /**
+     * Creates an empty labeling over the current edges of a graph.
+     *
+     * @param g The graph whose edges are labeled.
+     */
+    public IntEdgeLabeling(Graph g) {
+        super(g);
+        this.values = new int[edgeCount()];
+    }
+
+    /**
+     * Labels the edge from u to v.
+     *
+     * @throws GraphException if there is no edge from u to v.
+     */
+    public void addLabel(int u, int v, int label) {
+        int e = indexOf(u, v);
+        values[e] = label;
+        markLabeled(e);
+    }
+
+    /**
+     * Returns the label of the edge from u to v, or the given default if
+     * the edge has no label.
+     */
+    public int getLabel(int u, int v, int defaultValue) {
+        int e = find(u, v);
+        return e >= 0 && isLabeled(e) ? values[e] : defaultValue;
+    }
+
+    @Override
+    double weightAt(int e) {
+        return values[e];
+    }
+}
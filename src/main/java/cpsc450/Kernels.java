@@ -0,0 +1,225 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+/**
+ * Inner-loop kernels shared by the solvers: the tour cost sum, the
+ * Held-Karp minimum over predecessors, nearest-neighbour selection over a
+ * weight row and Euclidean distance rows.
+ *
+ * There are two implementations. VectorKernels uses the incubating Vector
+ * API (jdk.incubator.vector), which the build adds to the compiler, the
+ * tests and the exec runs with --add-modules. Scalar keeps the plain loops
+ * for JVMs started without the module. The choice is made once, when the
+ * class is initialized, so every call site sees a single implementation
+ * and the JIT inlines it. Setting the system property cpsc450.kernels to
+ * "scalar" forces the plain loops, for comparing the two.
+ *
+ * Sums are accumulated lane by lane and the lanes are then added in
+ * order, so a tour cost is the same whether it comes from cycleCost or
+ * from sum over the same edge weights.
+ */
+final class Kernels {
+
+    /**
+     * The operations a kernel implementation provides.
+     */
+    interface Impl {
+        double minPlus(double[] a, int offset, double[] b, int length);
+
+        double cycleCost(double[][] weights, int[] order, int n);
+
+        double sum(double[] values, int n);
+
+        int nearest(double[] row, int exclude, int[] best, double[] bestWeight);
+
+        void euclideanRow(double[] xs, double[] ys, int x, double[] row);
+    }
+
+    private static final Impl IMPL = load();
+
+    private Kernels() {
+    }
+
+    /**
+     * Picks the Vector API kernels if the module is present, and the plain
+     * loops otherwise.
+     */
+    private static Impl load() {
+        if ("scalar".equals(System.getProperty("cpsc450.kernels"))) {
+            return new Scalar();
+        }
+        try {
+            Class.forName("jdk.incubator.vector.DoubleVector"); // Absent unless the module was added
+            return (Impl) Class.forName("cpsc450.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new Scalar();
+        }
+    }
+
+    /**
+     * Returns "vector" or "scalar", whichever implementation is in use.
+     */
+    static String implementation() {
+        return IMPL instanceof Scalar ? "scalar" : "vector";
+    }
+
+    /**
+     * Returns the minimum of a[offset + i] + b[i] over i < length, or
+     * infinity if length is 0. NaN sums are skipped.
+     */
+    static double minPlus(double[] a, int offset, double[] b, int length) {
+        return IMPL.minPlus(a, offset, b, length);
+    }
+
+    /**
+     * Returns the cost of the closed tour order[0..n-1].
+     */
+    static double cycleCost(double[][] weights, int[] order, int n) {
+        return IMPL.cycleCost(weights, order, n);
+    }
+
+    /**
+     * Returns the sum of values[0..n-1], added in the same order as the
+     * edges of cycleCost.
+     */
+    static double sum(double[] values, int n) {
+        return IMPL.sum(values, n);
+    }
+
+    /**
+     * Selects the nearest vertices in a weight row, skipping the vertex
+     * itself and non-finite weights. Ties go to the lower index.
+     *
+     * @param row        The weights from the vertex.
+     * @param exclude    The vertex itself.
+     * @param best       Receives the nearest vertices, closest first.
+     * @param bestWeight Receives their weights; as long as best.
+     * @return The number of vertices selected, at most best.length.
+     */
+    static int nearest(double[] row, int exclude, int[] best, double[] bestWeight) {
+        return IMPL.nearest(row, exclude, best, bestWeight);
+    }
+
+    /**
+     * Fills row with the Euclidean distances from point x to every point,
+     * including 0 for x itself.
+     *
+     * @param xs  The x coordinates.
+     * @param ys  The y coordinates.
+     * @param x   The point the distances are measured from.
+     * @param row Receives the distances; as long as xs.
+     */
+    static void euclideanRow(double[] xs, double[] ys, int x, double[] row) {
+        IMPL.euclideanRow(xs, ys, x, row);
+    }
+
+    /**
+     * Inserts vertex u into the sorted list if it is among the nearest.
+     *
+     * @return The new size of the list.
+     */
+    static int offer(double[] row, int u, int exclude, int[] best, double[] bestWeight, int size) {
+        int k = best.length;
+        double w = row[u];
+        if (u == exclude || Double.isNaN(w) || Double.isInfinite(w)) {
+            return size;
+        }
+        if (size == k && (k == 0 || w >= bestWeight[k - 1])) {
+            return size;
+        }
+        int i = size < k ? size++ : k - 1;
+        while (i > 0 && bestWeight[i - 1] > w) {
+            best[i] = best[i - 1];
+            bestWeight[i] = bestWeight[i - 1];
+            i--;
+        }
+        best[i] = u;
+        bestWeight[i] = w;
+        return size;
+    }
+
+    /**
+     * The plain loops, in the shapes the JIT compiles best: straight loops
+     * over contiguous arrays with loop-invariant loads hoisted and no calls
+     * that block auto-vectorization (Math.hypot in particular). Nearest
+     * selection checks four entries at a time, so that whole blocks that
+     * cannot enter the list are skipped with one comparison.
+     */
+    static final class Scalar implements Impl {
+
+        private static final int LANES = 4;
+
+        @Override
+        public double minPlus(double[] a, int offset, double[] b, int length) {
+            double min = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < length; i++) {
+                double sum = a[offset + i] + b[i];
+                min = sum < min ? sum : min;
+            }
+            return min;
+        }
+
+        @Override
+        public double cycleCost(double[][] weights, int[] order, int n) {
+            if (n == 0) {
+                return 0;
+            }
+            double cost = 0;
+            int u = order[0];
+            for (int i = 1; i < n; i++) {
+                int v = order[i];
+                cost += weights[u][v];
+                u = v;
+            }
+            return cost + weights[u][order[0]];
+        }
+
+        @Override
+        public double sum(double[] values, int n) {
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += values[i];
+            }
+            return sum;
+        }
+
+        @Override
+        public int nearest(double[] row, int exclude, int[] best, double[] bestWeight) {
+            int k = best.length;
+            int size = 0;
+            int u = 0;
+            for (; u + LANES <= row.length; u += LANES) {
+                if (size == k && k > 0) {
+                    double low = Math.min(Math.min(row[u], row[u + 1]), Math.min(row[u + 2], row[u + 3]));
+                    if (low >= bestWeight[k - 1]) {
+                        continue; // None of the four can enter the list
+                    }
+                }
+                for (int lane = 0; lane < LANES; lane++) {
+                    size = offer(row, u + lane, exclude, best, bestWeight, size);
+                }
+            }
+            for (; u < row.length; u++) {
+                size = offer(row, u, exclude, best, bestWeight, size);
+            }
+            return size;
+        }
+
+        @Override
+        public void euclideanRow(double[] xs, double[] ys, int x, double[] row) {
+            double px = xs[x];
+            double py = ys[x];
+            for (int y = 0; y < xs.length; y++) {
+                double dx = px - xs[y];
+                double dy = py - ys[y];
+                row[y] = Math.sqrt(dx * dx + dy * dy);
+            }
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Storage for one layer of Held-Karp states, addressed by a long index.
+ * A layer holds either doubles (costs) or bytes (predecessors). Besides
+ * single states, runs of consecutive states can be read and written at
+ * once, which is how the DP touches them.
+ */
+abstract class Layer {
+
+    abstract double getDouble(long i);
+
+    abstract void setDouble(long i, double value);
+
+    abstract byte getByte(long i);
+
+    abstract void setByte(long i, byte value);
+
+    /**
+     * Reads the costs of states i to i + length - 1 into dst.
+     */
+    abstract void getDoubles(long i, double[] dst, int length);
+
+    /**
+     * Writes src[0..length) to the costs of states i to i + length - 1.
+     */
+    abstract void setDoubles(long i, double[] src, int length);
+
+    /**
+     * Writes src[0..length) to the bytes of states i to i + length - 1.
+     */
+    abstract void setBytes(long i, byte[] src, int length);
+
+    /**
+     * Releases the storage of the layer.
+     */
+    void close() {
+    }
+
+    /**
+     * A layer kept in a Java array.
+     */
+    static class Memory extends Layer {
+        private final double[] doubles;
+        private final byte[] bytes;
+
+        Memory(long size, boolean costs) {
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new GraphException("Layer of " + size + " states is too large to keep in memory");
+            }
+            this.doubles = costs ? new double[(int) size] : null;
+            this.bytes = costs ? null : new byte[(int) size];
+        }
+
+        @Override
+        double getDouble(long i) {
+            return doubles[(int) i];
+        }
+
+        @Override
+        void setDouble(long i, double value) {
+            doubles[(int) i] = value;
+        }
+
+        @Override
+        byte getByte(long i) {
+            return bytes[(int) i];
+        }
+
+        @Override
+        void setByte(long i, byte value) {
+            bytes[(int) i] = value;
+        }
+
+        @Override
+        void getDoubles(long i, double[] dst, int length) {
+            System.arraycopy(doubles, (int) i, dst, 0, length);
+        }
+
+        @Override
+        void setDoubles(long i, double[] src, int length) {
+            System.arraycopy(src, 0, doubles, (int) i, length);
+        }
+
+        @Override
+        void setBytes(long i, byte[] src, int length) {
+            System.arraycopy(src, 0, bytes, (int) i, length);
+        }
+    }
+
+    /**
+     * A fixed set of direct buffers shared by every spilled layer of one
+     * run. Each buffer holds one window of one layer file; a window that is
+     * needed while every buffer is in use replaces the least recently used
+     * one, which is written back first if it was changed. Buffers are only
+     * allocated as they are first needed, and never more than the pool's
+     * size, so the memory held is bounded no matter how many layers exist.
+     */
+    static class Pool {
+        private final int windowBytes;
+        private final ByteBuffer[] buffers;
+        private final Spilled[] owners;  // Layer whose window each buffer holds, null if free
+        private final long[] windows;    // Index of that window in the layer
+        private final boolean[] dirty;   // Changed since it was read
+        private final long[] lastUsed;
+        private long clock;
+
+        /**
+         * Creates a pool.
+         *
+         * @param windowBytes The size of each buffer, a positive multiple of 8.
+         * @param count       The number of buffers.
+         */
+        Pool(int windowBytes, int count) {
+            if (windowBytes <= 0 || windowBytes % Double.BYTES != 0) {
+                throw new IllegalArgumentException("Window size must be a positive multiple of 8");
+            }
+            if (count <= 0) {
+                throw new IllegalArgumentException("A pool needs at least one window");
+            }
+            this.windowBytes = windowBytes;
+            this.buffers = new ByteBuffer[count];
+            this.owners = new Spilled[count];
+            this.windows = new long[count];
+            this.dirty = new boolean[count];
+            this.lastUsed = new long[count];
+        }
+
+        /**
+         * Returns the number of buffers allocated so far.
+         */
+        int allocated() {
+            int count = 0;
+            for (ByteBuffer buffer : buffers) {
+                if (buffer != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Returns the buffer slot that holds a window of a layer, reading
+         * the window from the layer file if it is not held yet.
+         */
+        private int acquire(Spilled layer, long window) {
+            int victim = 0;
+            for (int s = 0; s < buffers.length; s++) {
+                if (owners[s] == layer && windows[s] == window) {
+                    lastUsed[s] = ++clock;
+                    return s;
+                }
+                if (age(s) < age(victim)) {
+                    victim = s;
+                }
+            }
+            try {
+                if (owners[victim] != null && dirty[victim]) {
+                    owners[victim].write(buffers[victim], windows[victim]);
+                }
+                if (buffers[victim] == null) {
+                    buffers[victim] = ByteBuffer.allocateDirect(windowBytes).order(ByteOrder.nativeOrder());
+                }
+                layer.read(buffers[victim], window);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            owners[victim] = layer;
+            windows[victim] = window;
+            dirty[victim] = false;
+            lastUsed[victim] = ++clock;
+            return victim;
+        }
+
+        /**
+         * Orders the slots for replacement: free buffers first, then slots
+         * with no buffer yet, then the least recently used window.
+         */
+        private long age(int s) {
+            return owners[s] != null ? lastUsed[s] : buffers[s] != null ? -2 : -1;
+        }
+
+        /**
+         * Frees the buffers holding windows of a layer without writing them.
+         */
+        private void release(Spilled layer) {
+            for (int s = 0; s < buffers.length; s++) {
+                if (owners[s] == layer) {
+                    owners[s] = null;
+                    dirty[s] = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * A layer stored in a file and accessed through the buffers of a
+     * shared pool. The slot of the window used last is remembered, so
+     * runs of nearby states cost one pool lookup.
+     */
+    static class Spilled extends Layer {
+        private final Path file;
+        private final FileChannel channel;
+        private final long fileBytes;
+        private final Pool pool;
+        private final int windowBytes;
+        private int slot = -1; // Pool slot of the window used last, checked before use
+
+        /**
+         * Creates the backing file for a layer.
+         *
+         * @param file  The file to store the layer in.
+         * @param size  The number of states in the layer.
+         * @param costs True for a layer of doubles, false for bytes.
+         * @param pool  The buffers to access the file through.
+         */
+        Spilled(Path file, long size, boolean costs, Pool pool) {
+            this.file = file;
+            this.fileBytes = costs ? size * Double.BYTES : size;
+            this.pool = pool;
+            this.windowBytes = pool.windowBytes;
+            try {
+                this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Returns the buffer holding the window that contains a byte offset.
+         */
+        private ByteBuffer window(long offset, boolean write) {
+            long window = offset / windowBytes;
+            int s = slot;
+            if (s < 0 || pool.owners[s] != this || pool.windows[s] != window) {
+                s = pool.acquire(this, window);
+                slot = s;
+            }
+            if (write) {
+                pool.dirty[s] = true;
+            }
+            return pool.buffers[s];
+        }
+
+        /**
+         * Fills a buffer with a window of the file. Parts that were never
+         * written read as zero.
+         */
+        private void read(ByteBuffer buffer, long window) throws IOException {
+            long start = window * windowBytes;
+            buffer.clear();
+            buffer.limit((int) Math.min(windowBytes, fileBytes - start));
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+                // Keep reading until the window is full or the file ends
+            }
+            while (buffer.hasRemaining()) {
+                buffer.put((byte) 0);
+            }
+        }
+
+        /**
+         * Writes a buffer back to its window of the file.
+         */
+        private void write(ByteBuffer buffer, long window) throws IOException {
+            long start = window * windowBytes;
+            buffer.clear();
+            buffer.limit((int) Math.min(windowBytes, fileBytes - start));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, start + buffer.position());
+            }
+        }
+
+        @Override
+        double getDouble(long i) {
+            long offset = i * Double.BYTES;
+            return window(offset, false).getDouble((int) (offset % windowBytes));
+        }
+
+        @Override
+        void setDouble(long i, double value) {
+            long offset = i * Double.BYTES;
+            window(offset, true).putDouble((int) (offset % windowBytes), value);
+        }
+
+        @Override
+        byte getByte(long i) {
+            return window(i, false).get((int) (i % windowBytes));
+        }
+
+        @Override
+        void setByte(long i, byte value) {
+            window(i, true).put((int) (i % windowBytes), value);
+        }
+
+        @Override
+        void getDoubles(long i, double[] dst, int length) {
+            for (int done = 0; done < length;) {
+                long offset = (i + done) * Double.BYTES;
+                int at = (int) (offset % windowBytes);
+                int count = Math.min(length - done, (windowBytes - at) / Double.BYTES);
+                ByteBuffer buffer = window(offset, false);
+                for (int end = done + count; done < end; done++, at += Double.BYTES) {
+                    dst[done] = buffer.getDouble(at);
+                }
+            }
+        }
+
+        @Override
+        void setDoubles(long i, double[] src, int length) {
+            for (int done = 0; done < length;) {
+                long offset = (i + done) * Double.BYTES;
+                int at = (int) (offset % windowBytes);
+                int count = Math.min(length - done, (windowBytes - at) / Double.BYTES);
+                ByteBuffer buffer = window(offset, true);
+                for (int end = done + count; done < end; done++, at += Double.BYTES) {
+                    buffer.putDouble(at, src[done]);
+                }
+            }
+        }
+
+        @Override
+        void setBytes(long i, byte[] src, int length) {
+            for (int done = 0; done < length;) {
+                int at = (int) ((i + done) % windowBytes);
+                int count = Math.min(length - done, windowBytes - at);
+                window(i + done, true).put(at, src, done, count);
+                done += count;
+            }
+        }
+
+        /**
+         * Gives the layer's buffers back to the pool and deletes the
+         * backing file.
+         */
+        @Override
+        void close() {
+            pool.release(this);
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
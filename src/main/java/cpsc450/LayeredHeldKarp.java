@@ -0,0 +1,260 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory-lean variant of the Held-Karp algorithm.
+ *
+ * States are grouped into layers by subset size. Within layer k, the state
+ * (S, j) is stored at rank(S) * k + t, where rank(S) is the colex rank of S
+ * among all k-subsets and j is the t-th smallest element of S. Only the
+ * costs of the current and previous layers are kept; older layers are
+ * reduced to one predecessor byte per state, which is all the tour
+ * reconstruction needs. Masks are longs, so the indexing itself is valid
+ * up to 63 vertices.
+ *
+ * Given a spill directory, every layer is written to its own file instead
+ * of being kept on the heap. All layer files of a run share one fixed pool
+ * of windows (direct buffers read and written with FileChannel), so the
+ * memory used is at most maxWindows * windowBytes however large the layers
+ * get. Each layer is written front to back, a run of k states at a time.
+ * Reads of the previous layer are only partly sequential: dropping the
+ * largest element of S walks it in order, but dropping any other element
+ * jumps to the colex rank of a different subset. A window missed this way
+ * is read back through FileChannel, which the operating system's page
+ * cache normally serves without going to disk. The slowdown over keeping
+ * the layers in memory therefore stays steady instead of growing with the
+ * layer size. At n = 22, with a previous layer of about 30 MB, 16 windows
+ * of 8 KB or 64 KB took 1.6 times as long as the in-memory run, and 16
+ * windows of 8 MB took 1.2 times as long. A small pool is enough. Only
+ * once the layer files outgrow the page cache do misses become real disk
+ * reads.
+ */
+public class LayeredHeldKarp {
+
+    static final int DEFAULT_WINDOW_BYTES = 8 << 20;
+    static final int DEFAULT_MAX_WINDOWS = 16;
+
+    private Graph graph;
+    private double[][] weightCache;
+    private double tourCost = Double.NaN;
+    private final Path spillDirectory; // null keeps all layers in memory
+    private final int windowBytes;
+    private final int maxWindows;
+
+    /**
+     * Constructor for the LayeredHeldKarp class
+     * @param graph The graph representing the TSP problem
+     */
+    public LayeredHeldKarp(Graph graph) {
+        this(graph, null, DEFAULT_WINDOW_BYTES, DEFAULT_MAX_WINDOWS);
+    }
+
+    /**
+     * Constructor for a LayeredHeldKarp that keeps its layers on disk
+     * @param graph The graph representing the TSP problem
+     * @param spillDirectory The directory for the layer files
+     */
+    public LayeredHeldKarp(Graph graph, Path spillDirectory) {
+        this(graph, spillDirectory, DEFAULT_WINDOW_BYTES, DEFAULT_MAX_WINDOWS);
+    }
+
+    /**
+     * Constructor for a LayeredHeldKarp with explicit I/O buffer bounds
+     * @param graph The graph representing the TSP problem
+     * @param spillDirectory The directory for the layer files, or null to stay in memory
+     * @param windowBytes The size of each window buffer (a multiple of 8)
+     * @param maxWindows The number of window buffers shared by all layer files
+     */
+    public LayeredHeldKarp(Graph graph, Path spillDirectory, int windowBytes, int maxWindows) {
+        this.spillDirectory = spillDirectory;
+        this.windowBytes = windowBytes;
+        this.maxWindows = maxWindows;
+        this.graph = graph;
+        if (graph instanceof DistanceMatrix) {
+            this.weightCache = ((DistanceMatrix) graph).rows(); // Shared, never written
+        } else {
+            this.weightCache = new double[graph.vertices()][graph.vertices()];
+            for (int i = 0; i < graph.vertices(); i++) {
+                graph.copyWeightRow(i, weightCache[i]);
+            }
+        }
+    }
+
+    /**
+     * Runs the Held-Karp algorithm layer by layer.
+     * @return A List representing the optimal tour, starting at vertex 0
+     */
+    public List<Integer> run() {
+        int n = graph.vertices();
+        if (n == 1) {
+            tourCost = 0;
+            return new ArrayList<>(List.of(0));
+        }
+        int m = n - 1;
+        if (m > Long.SIZE - 2) {
+            throw new GraphException("Layered Held-Karp supports at most " + (Long.SIZE - 1) + " vertices");
+        }
+        Subsets subsets = new Subsets(m);
+
+        Layer.Pool pool = spillDirectory == null ? null : new Layer.Pool(windowBytes, maxWindows);
+        Layer[] predecessors = new Layer[m + 1];
+        Layer previous = newLayer(pool, "costs-1", m, true);
+        try {
+            for (int j = 0; j < m; j++) {
+                previous.setDouble(j, weightCache[0][j + 1]);
+            }
+
+            for (int k = 2; k <= m; k++) {
+                long states = subsets.choose(m, k) * k;
+                Layer current = newLayer(pool, "costs-" + k, states, true);
+                predecessors[k] = newLayer(pool, "pred-" + k, states, false);
+                fillLayer(subsets, m, k, previous, current, predecessors[k]);
+                previous.close(); // Layer k - 1 is no longer needed
+                previous = current;
+            }
+
+            return reconstructTour(previous, predecessors, m);
+        } finally {
+            previous.close();
+            for (Layer layer : predecessors) {
+                if (layer != null) {
+                    layer.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the storage for one layer, in memory or in the spill directory.
+     * @param pool The window buffers of spilled layers, null to stay in memory
+     * @param name The name of the layer file
+     * @param size The number of states in the layer
+     * @param costs True for a layer of costs, false for predecessor bytes
+     * @return The new layer
+     */
+    private Layer newLayer(Layer.Pool pool, String name, long size, boolean costs) {
+        if (pool == null) {
+            return new Layer.Memory(size, costs);
+        }
+        return new Layer.Spilled(spillDirectory.resolve("held-karp-" + name + ".bin"), size, costs, pool);
+    }
+
+    /**
+     * Returns the cost of the tour found by the last call to run().
+     * @return The optimal tour cost, or NaN if run() has not been called
+     */
+    public double getTourCost() {
+        return tourCost;
+    }
+
+    /**
+     * Fills layer k from layer k - 1.
+     * @param subsets The subset ranking helper
+     * @param m The number of vertices other than the start vertex
+     * @param k The subset size of the layer
+     * @param previous The costs of layer k - 1
+     * @param current The costs of layer k (output)
+     * @param pred The predecessor of every state in layer k (output)
+     */
+    private void fillLayer(Subsets subsets, int m, int k, Layer previous, Layer current, Layer pred) {
+        int[] elements = new int[k];
+        double[] prevCosts = new double[k - 1]; // Costs of S without its t-th element
+        double[] costs = new double[k];         // Costs of the k states of S, written together
+        byte[] argMins = new byte[k];
+        long[] below = new long[k + 1]; // Rank contribution of elements before t, unshifted
+        long[] above = new long[k + 1]; // Rank contribution of elements after t, shifted down
+        long count = subsets.choose(m, k);
+        long mask = (1L << k) - 1;
+
+        for (long r = 0; r < count; r++) {
+            long bits = mask;
+            for (int t = 0; t < k; t++) {
+                elements[t] = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+            for (int t = 0; t < k; t++) {
+                below[t + 1] = below[t] + subsets.choose(elements[t], t + 1);
+            }
+            above[k - 1] = 0;
+            for (int t = k - 1; t > 0; t--) {
+                above[t - 1] = above[t] + subsets.choose(elements[t], t);
+            }
+
+            long base = r * k;
+            for (int t = 0; t < k; t++) {
+                // S without its t-th element, and where its elements sit in layer k - 1
+                long prevBase = (below[t] + above[t]) * (k - 1);
+                int j = elements[t] + 1;
+                double minCost = Double.POSITIVE_INFINITY;
+                int argMin = t == 0 ? elements[1] : elements[0];
+                previous.getDoubles(prevBase, prevCosts, k - 1);
+                for (int u = 0; u < k - 1; u++) {
+                    int i = elements[u < t ? u : u + 1];
+                    double cost = prevCosts[u] + weightCache[i + 1][j];
+                    if (cost < minCost) {
+                        minCost = cost;
+                        argMin = i;
+                    }
+                }
+                costs[t] = minCost;
+                argMins[t] = (byte) argMin;
+            }
+            current.setDoubles(base, costs, k);
+            pred.setBytes(base, argMins, k);
+            mask = Subsets.next(mask);
+        }
+    }
+
+    /**
+     * Reconstructs the optimal tour from the last layer and the stored
+     * predecessor bytes.
+     * @param last The costs of the final layer (the full set)
+     * @param predecessors The predecessor bytes of layers 2 to m
+     * @param m The number of vertices other than the start vertex
+     * @return The optimal tour, starting at vertex 0
+     */
+    private List<Integer> reconstructTour(Layer last, Layer[] predecessors, int m) {
+        Subsets subsets = new Subsets(m);
+        int end = 0;
+        double best = Double.POSITIVE_INFINITY;
+        for (int t = 0; t < m; t++) {
+            double cost = last.getDouble(t) + weightCache[t + 1][0];
+            if (cost < best) {
+                best = cost;
+                end = t;
+            }
+        }
+        tourCost = best;
+
+        int[] path = new int[m];
+        long mask = (1L << m) - 1;
+        for (int k = m; k >= 1; k--) {
+            path[k - 1] = end + 1;
+            if (k == 1) {
+                break;
+            }
+            int t = Long.bitCount(mask & ((1L << end) - 1));
+            long index = subsets.rank(mask) * k + t;
+            int previous = predecessors[k].getByte(index);
+            mask ^= 1L << end;
+            end = previous;
+        }
+
+        List<Integer> tour = new ArrayList<>(m + 1);
+        tour.add(0);
+        for (int v : path) {
+            tour.add(v);
+        }
+        return tour;
+    }
+}
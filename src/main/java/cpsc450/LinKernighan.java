@@ -7,13 +7,18 @@
 
 package cpsc450;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Random;
 import java.util.Set;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 public class LinKernighan {
 
@@ -25,8 +30,54 @@ public class LinKernighan {
     private static final int INITIAL_MAX_DEPTH = 5; // Initial recursion depth
     private static final int MAX_RECURSION_DEPTH = 50; // Maximum recursion depth
     private static final double INVALID_COST = Double.MAX_VALUE / 2;
-
-    private double[][] weightCache;
+    static final int MAX_WINDOW = 12; // Largest window re-optimized exactly by Held-Karp
+    static final int MAX_MOVE_DEPTH = 5; // Most edges exchanged by one sequential move
+    static final int DEFAULT_MOVE_DEPTH = 3; // Each extra level multiplies the search time
+    static final int COARSEST_FRAGMENTS = 10; // Multilevel coarsening stops at this many paths
+    private static final int[] MOVE_BREADTH = { 5, 3, 2, 2 }; // Candidates tried for each added edge of a move
+    private static final List<Map<Integer, int[]>> SEGMENT_REVERSALS = buildSegmentReversals(); // By segment count
+
+    private static final int ROW_MEMO = 8; // Closure rows kept by the solver itself, direct-mapped by vertex
+
+    private double[][] weightCache; // Null while the weights are read through closure
+    private boolean sharedWeights; // weightCache belongs to a DistanceMatrix and must be copied before writing
+    private MetricClosure closure; // Source of the weights, one row at a time, until the first write
+    private final int[] memoVertex = new int[ROW_MEMO]; // Vertex of each memoized closure row, -1 if empty
+    private final double[][] memoRow = new double[ROW_MEMO][];
+    private int[] edgeTarget;     // Last non-candidate edge read from each vertex of a closure, -1 if none
+    private double[] edgeWeight;  // Its weight; tour edges are read far more often than they change
+    private int[][] candidates; // Nearest neighbours per vertex, built on first use
+    private double[][] candidateWeights; // Weights to the candidates, kept while reading a closure
+    private boolean symmetric;  // weightCache[u][v] == weightCache[v][u] for all u, v, set with candidates
+    private final Set<Integer> dirty = new LinkedHashSet<>(); // Vertices to re-optimize
+    private double gapTolerance = Double.NaN; // Relative optimality gap that ends run() early
+    private double lowerBound = Double.NaN;
+    private int restartsCompleted;
+    private ConvergenceTrace trace = new ConvergenceTrace(); // Best costs found by the last run
+    private AllocationProfiler profiler; // Charged with each phase of run() if set
+    private final Random random;  // Source of the random starting tours
+    private long kOptAttempts;    // attemptDynamicKOpt calls since the last run() started
+    private long movesApplied;    // Kept k-opt chains and local moves since the last run() started
+    private long bridgeAttempts;  // doubleBridgeMove calls since the last run() started
+    private int moveDepth = DEFAULT_MOVE_DEPTH; // Largest k tried by sequentialMove
+    private final int[] moveT = new int[2 * MAX_MOVE_DEPTH]; // t1..t2k of the move being built
+    private final int[] moveFirst = new int[MAX_MOVE_DEPTH];  // Slot of the earlier tour endpoint of each removed edge
+    private final int[] moveEdges = new int[MAX_MOVE_DEPTH];  // Removed edges in tour order
+    private final int[] segStart = new int[MAX_MOVE_DEPTH];   // Slot where each segment starts
+    private final int[] segEnd = new int[MAX_MOVE_DEPTH];     // Slot where each segment ends
+    private final int[] slotSegment = new int[2 * MAX_MOVE_DEPTH];
+    private final boolean[] slotStarts = new boolean[2 * MAX_MOVE_DEPTH];
+    private final int[] moveOrder = new int[MAX_MOVE_DEPTH]; // Segments of the move in their current tour order
+    private int[] costOrder; // Scratch copy of the tour for calculateTourCost
+    private double[] costWeights; // Scratch tour edge weights for calculateTourCost on a closure
+    private int[] rebuilt; // Scratch order for applying a double-bridge move
+    private boolean doubleBridges = true; // Whether improveTour tries double-bridge moves once it stalls
+    private int backboneRestarts;  // Restarts whose common edges are fixed for the rest of run(), 0 for none
+    private int[][] backbone;      // Fixed tour neighbours per vertex, -1 for a free slot; null when nothing is fixed
+    private int[][] sharedEdges;   // Tour neighbours per vertex in the first restart's tour
+    private int[][] sharedCounts;  // Restarts whose tour kept each of those edges
+    private int backboneSize;      // Edges fixed by the last run
+    private final NeighborCursor[] cursors = new NeighborCursor[MAX_RECURSION_DEPTH + 1]; // One per breakingEdge depth
 
     /**
      * Constructor for the LinKernighan algorithm, initializing the graph, random
@@ -37,15 +88,50 @@ public class LinKernighan {
      *              weights.
      */
     public LinKernighan(Graph graph) {
+        this(graph, new Random());
+    }
+
+    /**
+     * Constructor for a deterministic LinKernighan run. Two solvers built
+     * from the same graph and seed produce the same tours and the same
+     * operation counts.
+     * 
+     * @param graph The graph representing the problem, containing vertices and edge
+     *              weights.
+     * @param seed  The seed for the random starting tours.
+     */
+    public LinKernighan(Graph graph, long seed) {
+        this(graph, new Random(seed));
+    }
+
+    /**
+     * Caches the edge weights and draws the first random tour. A
+     * MetricClosure is not copied: its rows are read on demand, so the
+     * closure's byte budget also bounds the solver.
+     *
+     * @param graph  The graph representing the problem.
+     * @param random The source of the random starting tours.
+     */
+    private LinKernighan(Graph graph, Random random) {
         this.graph = graph;
-        this.tour = initializeRandomTour();
+        this.random = random;
+        Arrays.fill(memoVertex, -1);
         // Cache edge weights
-        this.weightCache = new double[graph.vertices()][graph.vertices()];
-        for (int i = 0; i < graph.vertices(); i++) {
-            for (int j = 0; j < graph.vertices(); j++) {
-                weightCache[i][j] = graph.weight(i, j);
+        if (graph instanceof DistanceMatrix) {
+            this.weightCache = ((DistanceMatrix) graph).rows(); // Shared until the first updateWeight
+            this.sharedWeights = true;
+        } else if (graph instanceof MetricClosure) {
+            this.closure = (MetricClosure) graph;
+            this.edgeTarget = new int[closure.vertices()];
+            this.edgeWeight = new double[closure.vertices()];
+            Arrays.fill(edgeTarget, -1);
+        } else {
+            this.weightCache = new double[graph.vertices()][graph.vertices()];
+            for (int i = 0; i < graph.vertices(); i++) {
+                graph.copyWeightRow(i, weightCache[i]);
             }
         }
+        this.tour = initializeRandomTour();
     }
 
     /**
@@ -61,21 +147,51 @@ public class LinKernighan {
      * applying k-opt moves until no further improvements are found. If the tour
      * improves during any
      * restart, it updates the best tour found so far.
+     *
+     * If a gap tolerance is set, the Held-Karp lower bound is computed after
+     * the first restart and no further restarts are made once the best tour
+     * is within the tolerance of the bound.
+     *
+     * In backbone mode, the edges shared by the tours of the first few
+     * restarts are fixed, and later restarts start from random tours that
+     * contain them and only move the other edges. Once every edge is
+     * fixed there is nothing left to search and run() stops restarting.
+     *
+     * Every new best tour cost is recorded in the convergence trace, with
+     * the time since run() started. If a profiler is set, the k-opt search,
+     * the 2-opt search, the lower bound and the restarts are charged to it
+     * as separate phases.
      */
     public void run() {
+        enterPhase("restart");
         double bestCost = calculateTourCost(tour);
         List<Integer> bestTour = new ArrayList<>(tour);
+        restartsCompleted = 0;
+        kOptAttempts = 0;
+        movesApplied = 0;
+        bridgeAttempts = 0;
+        backbone = null;
+        sharedEdges = null;
+        sharedCounts = null;
+        backboneSize = 0;
+        trace.start();
+        trace.offer(bestCost);
 
         for (int restart = 0; restart < MAX_RESTARTS; restart++) {
+            enterPhase("k-opt");
             boolean improved = true;
             while (improved) {
                 improved = false;
 
                 for (int i = 0; i < tour.size(); i++) {
+                    if (isFixed(tour.get(i), tour.get((i + 1) % tour.size()))) {
+                        continue; // Every swap from here would remove a backbone edge
+                    }
                     List<Edge> candidates = getCandidateEdges(i);
                     for (Edge candidate : candidates) {
                         if (attemptDynamicKOpt(i, candidate, INITIAL_MAX_DEPTH)) {
                             improved = true;
+                            trace.offer(calculateTourCost(tour));
                             break;
                         }
                     }
@@ -84,19 +200,1413 @@ public class LinKernighan {
                 }
             }
 
+            // Finish the restart with a full neighbourhood search
+            enterPhase("2-opt");
+            improveTour(tour);
+
             // Update best tour if current tour is better
+            enterPhase("restart");
             double currentCost = calculateTourCost(tour);
+            trace.offer(currentCost);
             if (currentCost < bestCost) {
                 bestCost = currentCost;
                 bestTour = new ArrayList<>(tour);
             }
+            restartsCompleted++;
+            if (restartsCompleted <= backboneRestarts && recordBackbone()) {
+                break; // Every restart found the same tour
+            }
+
+            // Stop early once the best tour is provably close enough to optimal
+            enterPhase("bound");
+            if (withinGapTolerance(bestCost)) {
+                break;
+            }
 
             // Restart with a new randomized tour
+            enterPhase("restart");
             this.tour = initializeRandomTour();
         }
 
         // Finalize the best tour
         this.tour = bestTour;
+        backbone = null;
+        sharedEdges = null;
+        sharedCounts = null;
+        dirty.clear();
+        exitPhase();
+    }
+
+    /**
+     * Optimizes the tour with multilevel refinement instead of restarts.
+     * The instance is coarsened level by level into paths: each level
+     * matches the endpoints of the current paths with the nearest free
+     * endpoint of another path, and every matched pair becomes a fixed
+     * edge. A level is a real coarse instance: its cities are the path
+     * endpoints, each path joins its two endpoints by a fixed edge, and
+     * its candidate lists hold the nearest endpoints of other paths,
+     * rebuilt for every level from the endpoint-to-endpoint weights. Every
+     * path is matched if any other path is still free, going past the
+     * candidate lists when they run out, so each level roughly halves the
+     * number of paths, down to COARSEST_FRAGMENTS.
+     *
+     * The coarsest instance is solved from MAX_RESTARTS random joins of
+     * its paths, and the best tour is kept. The levels are then undone in
+     * reverse order: each level's edges are freed and the neighbourhood
+     * search runs again from its endpoints, over that level's candidates.
+     *
+     * Besides the weights the solver already reads, coarsening keeps
+     * MAX_CANDIDATES candidates per endpoint per level, O(n log n) in
+     * total; it never builds an n x n table. Building a level's lists
+     * reads the weight row of each of its E endpoints, O(E^2) time, which
+     * sums to about the cost of the original candidate lists.
+     *
+     * Every level's cost is recorded in the convergence trace. If a
+     * profiler is set, coarsening and refinement are charged to it as
+     * separate phases.
+     */
+    public void runMultilevel() {
+        int n = vertexCount();
+        restartsCompleted = 0;
+        kOptAttempts = 0;
+        movesApplied = 0;
+        bridgeAttempts = 0;
+        backboneSize = 0;
+        trace.start();
+        if (n < 8) {
+            run(); // Too small to coarsen
+            return;
+        }
+
+        enterPhase("coarsen");
+        ensureCandidateLists();
+        int[][] fine = candidates;
+        double[][] fineWeights = candidateWeights;
+        backbone = new int[n][2];
+        for (int[] slots : backbone) {
+            Arrays.fill(slots, -1);
+        }
+        List<int[]> levels = new ArrayList<>();
+        try {
+            List<int[][]> levelCandidates = coarsen(levels);
+
+            enterPhase("refine");
+            candidateWeights = null; // They index the original lists
+            candidates = levelCandidates.get(levels.size());
+            solveCoarsest();
+            for (int level = levels.size() - 1; level >= 0; level--) {
+                int[] edges = levels.get(level);
+                List<Integer> seeds = new ArrayList<>(edges.length);
+                for (int e = 0; e < edges.length; e += 2) {
+                    unfix(edges[e], edges[e + 1]);
+                    unfix(edges[e + 1], edges[e]);
+                    seeds.add(edges[e]);
+                    seeds.add(edges[e + 1]);
+                }
+                candidates = levelCandidates.get(level);
+                if (level == 0) {
+                    backbone = null;
+                    candidateWeights = fineWeights;
+                }
+                improveTour(seeds);
+                trace.offer(calculateTourCost(tour));
+            }
+        } finally {
+            candidates = fine;
+            candidateWeights = fineWeights;
+            backbone = null;
+        }
+        restartsCompleted = 1;
+        dirty.clear();
+        exitPhase();
+    }
+
+    /**
+     * Fixes matchings of path endpoints level by level, until at most
+     * COARSEST_FRAGMENTS paths are left. Endpoints are visited in random
+     * order, each path is matched at most once per level, and the two
+     * endpoints of one path are never joined, so the fixed edges always
+     * form paths.
+     *
+     * @param levels Receives the edges fixed at each level, as pairs of
+     *               vertices.
+     * @return The candidate lists of every level, from the original
+     *         vertices (level 0) to the coarsest paths. Vertices that are
+     *         not endpoints at a level have no candidates there.
+     */
+    private List<int[][]> coarsen(List<int[]> levels) {
+        int n = vertexCount();
+        int[] otherEnd = new int[n]; // The other endpoint of each endpoint's path
+        for (int v = 0; v < n; v++) {
+            otherEnd[v] = v;
+        }
+
+        List<int[][]> levelCandidates = new ArrayList<>();
+        int[][] current = candidates; // Every vertex is an endpoint of the original instance
+        int fragments = n;
+        while (fragments > COARSEST_FRAGMENTS) {
+            levelCandidates.add(current);
+            List<Integer> order = new ArrayList<>();
+            for (int v = 0; v < n; v++) {
+                if (backbone[v][1] < 0) {
+                    order.add(v);
+                }
+            }
+            int[] ends = order.stream().mapToInt(Integer::intValue).toArray();
+            Collections.shuffle(order, random);
+
+            boolean[] matched = new boolean[n];
+            int[] edges = new int[n];
+            int size = 0;
+            for (int x : order) {
+                if (matched[x]) {
+                    continue;
+                }
+                // Join whichever end of the path is closer to a free path
+                int y = nearestFreeEndpoint(x, current, ends, otherEnd, matched);
+                int z = otherEnd[x];
+                int w = z == x ? -1 : nearestFreeEndpoint(z, current, ends, otherEnd, matched);
+                if (w >= 0 && (y < 0 || weight(z, w) < weight(x, y))) {
+                    x = z;
+                    y = w;
+                }
+                if (y < 0) {
+                    continue; // No other path is free
+                }
+                matched[x] = matched[otherEnd[x]] = matched[y] = matched[otherEnd[y]] = true;
+                backbone[x][backbone[x][0] < 0 ? 0 : 1] = y;
+                backbone[y][backbone[y][0] < 0 ? 0 : 1] = x;
+                int a = otherEnd[x];
+                int b = otherEnd[y];
+                otherEnd[a] = b;
+                otherEnd[b] = a;
+                edges[size++] = x;
+                edges[size++] = y;
+                if (fragments - size / 2 <= COARSEST_FRAGMENTS) {
+                    break;
+                }
+            }
+            if (size == 0) {
+                break;
+            }
+            levels.add(Arrays.copyOf(edges, size));
+            fragments -= size / 2;
+            backboneSize += size / 2;
+            current = endpointCandidates(otherEnd);
+        }
+        levelCandidates.add(current);
+        return levelCandidates;
+    }
+
+    /**
+     * Returns the nearest endpoint of another path that is not matched
+     * yet, or -1 if there is none. The candidate list is tried first; only
+     * when all of its entries are taken are the other endpoints scanned.
+     */
+    private int nearestFreeEndpoint(int x, int[][] lists, int[] ends, int[] otherEnd, boolean[] matched) {
+        for (int y : lists[x]) {
+            if (!matched[y] && y != otherEnd[x] && backbone[y][1] < 0) {
+                return y; // Candidates are sorted, so this is the nearest free one
+            }
+        }
+        int best = -1;
+        double bestWeight = Double.POSITIVE_INFINITY;
+        for (int y : ends) {
+            if (!matched[y] && y != x && y != otherEnd[x] && backbone[y][1] < 0) {
+                double w = weight(x, y);
+                if (best < 0 || w < bestWeight) {
+                    best = y;
+                    bestWeight = w;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Builds the candidate lists of a coarse level: for every path
+     * endpoint, its MAX_CANDIDATES nearest endpoints of other paths.
+     *
+     * @param otherEnd The other endpoint of each endpoint's path.
+     * @return The lists, empty for vertices inside a path.
+     */
+    private int[][] endpointCandidates(int[] otherEnd) {
+        int n = vertexCount();
+        int[] ends = IntStream.range(0, n).filter(v -> backbone[v][1] < 0).toArray();
+        int[][] lists = new int[n][];
+        Arrays.fill(lists, new int[0]);
+        int k = Math.min(MAX_CANDIDATES, ends.length - 1);
+        int[] best = new int[Math.max(k, 0)];
+        double[] bestWeight = new double[best.length];
+        double[] gathered = new double[ends.length];
+        for (int x : ends) {
+            double[] row = row(x);
+            for (int i = 0; i < ends.length; i++) {
+                int y = ends[i];
+                gathered[i] = y == x || y == otherEnd[x] ? Double.POSITIVE_INFINITY : row[y];
+            }
+            int size = Kernels.nearest(gathered, -1, best, bestWeight);
+            lists[x] = new int[size];
+            for (int i = 0; i < size; i++) {
+                lists[x][i] = ends[best[i]];
+            }
+        }
+        return lists;
+    }
+
+    /**
+     * Solves the coarsest level: its paths are joined in random order and
+     * direction, the joins are improved by the neighbourhood search, and
+     * the best of MAX_RESTARTS such tours is kept.
+     */
+    private void solveCoarsest() {
+        List<Integer> best = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int restart = 0; restart < MAX_RESTARTS; restart++) {
+            this.tour = initializeBackboneTour();
+            improveTour(tour);
+            double cost = calculateTourCost(tour);
+            trace.offer(cost);
+            if (best == null || cost < bestCost) {
+                best = new ArrayList<>(tour);
+                bestCost = cost;
+            }
+        }
+        this.tour = best;
+    }
+
+    /**
+     * Drops the fixed edge from u to v, keeping u's other fixed edge in
+     * the first slot.
+     */
+    private void unfix(int u, int v) {
+        if (backbone[u][1] == v) {
+            backbone[u][1] = -1;
+        } else if (backbone[u][0] == v) {
+            backbone[u][0] = backbone[u][1];
+            backbone[u][1] = -1;
+        }
+    }
+
+    /**
+     * Makes run() and polishWithWindows() charge their phases to the given
+     * profiler. Phases count the allocation of the calling thread, so the
+     * windows that polishWithWindows() solves on other threads are missing
+     * from its "polish" phase.
+     *
+     * @param profiler The profiler, or null to stop profiling.
+     */
+    public void setProfiler(AllocationProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    private void enterPhase(String phase) {
+        if (profiler != null) {
+            profiler.enter(phase);
+        }
+    }
+
+    private void exitPhase() {
+        if (profiler != null) {
+            profiler.exit();
+        }
+    }
+
+    /**
+     * Sets the largest number of edges a single sequential move may
+     * exchange during the neighbourhood search. Depth 2 only makes 2-opt
+     * moves; 3, the default, adds the 3-opt reconnections and 5 searches
+     * the full 5-opt basis move, for shorter tours at a higher cost per
+     * restart.
+     *
+     * @param depth The move depth, from 2 to MAX_MOVE_DEPTH.
+     */
+    public void setMoveDepth(int depth) {
+        if (depth < 2 || depth > MAX_MOVE_DEPTH) {
+            throw new IllegalArgumentException("Move depth must be between 2 and " + MAX_MOVE_DEPTH);
+        }
+        this.moveDepth = depth;
+    }
+
+    /**
+     * Sets whether the neighbourhood search tries non-sequential
+     * double-bridge moves once no sequential move improves the tour.
+     *
+     * @param enabled True to run the double-bridge pass.
+     */
+    public void setDoubleBridgeMoves(boolean enabled) {
+        this.doubleBridges = enabled;
+    }
+
+    /**
+     * Turns on backbone mode: the edges common to the tours of the first
+     * few restarts are fixed, and the later restarts of run() only search
+     * the remaining edges. This trades some diversity for much smaller
+     * searches.
+     *
+     * @param restarts The number of restarts to take the backbone from, or
+     *                 0 to search every edge in every restart.
+     */
+    public void setBackboneRestarts(int restarts) {
+        if (restarts < 0 || restarts >= MAX_RESTARTS) {
+            throw new IllegalArgumentException("Backbone restarts must be between 0 and " + (MAX_RESTARTS - 1));
+        }
+        this.backboneRestarts = restarts;
+    }
+
+    /**
+     * Returns the number of edges backbone mode fixed in the last run, or
+     * the number fixed by coarsening in the last runMultilevel.
+     *
+     * @return The number of fixed edges, 0 if nothing was fixed.
+     */
+    public int getBackboneSize() {
+        return backboneSize;
+    }
+
+    /**
+     * Sets the relative optimality gap at which run() stops restarting. The
+     * gap is (best tour cost - lower bound) / lower bound, so a tolerance of
+     * 0 only stops once the best tour is proven optimal.
+     *
+     * @param epsilon The gap tolerance, or NaN to always use every restart.
+     */
+    public void setGapTolerance(double epsilon) {
+        this.gapTolerance = epsilon;
+    }
+
+    /**
+     * Returns the Held-Karp lower bound computed during the last run, or
+     * NaN if no gap tolerance was set.
+     *
+     * @return The lower bound on the optimal tour cost.
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Returns the number of restarts the last run completed.
+     *
+     * @return The number of completed restarts.
+     */
+    public int getRestartsCompleted() {
+        return restartsCompleted;
+    }
+
+    /**
+     * Returns the number of dynamic k-opt attempts made by the last run.
+     *
+     * @return The number of k-opt attempts.
+     */
+    public long getKOptAttempts() {
+        return kOptAttempts;
+    }
+
+    /**
+     * Returns the number of moves kept since the last run started,
+     * including those made by reoptimize(). A k-opt swap chain counts once
+     * when it improves the tour; swaps that are tried and undone do not
+     * count.
+     *
+     * @return The number of applied moves.
+     */
+    public long getMovesApplied() {
+        return movesApplied;
+    }
+
+    /**
+     * Returns the number of vertices at which a double-bridge move was
+     * looked for since the last run started, including by reoptimize().
+     *
+     * @return The number of double-bridge attempts.
+     */
+    public long getDoubleBridgeAttempts() {
+        return bridgeAttempts;
+    }
+
+    /**
+     * Returns the convergence trace of the last run, including any later
+     * improvements from polishWithWindows.
+     *
+     * @return The trace of new best tour costs.
+     */
+    public ConvergenceTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Makes the solver record its convergence into the given trace, for
+     * callers that collect traces from several solvers.
+     *
+     * @param trace The trace to record into.
+     */
+    public void setTrace(ConvergenceTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Checks whether the best tour is within the gap tolerance of the
+     * lower bound. The bound is computed the first time it is needed, using
+     * the best cost so far to steer the subgradient steps.
+     *
+     * @param bestCost The cost of the best tour found so far.
+     * @return True if run() can stop restarting.
+     */
+    private boolean withinGapTolerance(double bestCost) {
+        if (Double.isNaN(gapTolerance) || bestCost >= INVALID_COST) {
+            return false;
+        }
+        if (Double.isNaN(lowerBound)) {
+            // On a closure the 1-trees read its rows one at a time, within its budget
+            lowerBound = (closure != null ? new OneTreeBound(closure) : new OneTreeBound(weightCache)).compute(bestCost);
+        }
+        double slack = gapTolerance * Math.abs(lowerBound) + GAIN_THRESHOLD;
+        return bestCost - lowerBound <= slack;
+    }
+
+    /**
+     * Changes the weight of the edge from u to v without rebuilding the
+     * solver. The endpoints and their tour neighbours are marked for
+     * re-optimization, and the candidate list of u is refreshed. Call
+     * {@link #reoptimize()} once all pending changes have been applied.
+     *
+     * @param u      The start (from) vertex of the edge.
+     * @param v      The end (to) vertex of the edge.
+     * @param weight The new weight of the edge.
+     */
+    public void updateWeight(int u, int v, double weight) {
+        int n = vertexCount();
+        if (u < 0 || u >= n || v < 0 || v >= n) {
+            throw new IllegalArgumentException("Invalid node index");
+        }
+        materializeWeights();
+        if (sharedWeights) {
+            weightCache = weightCache.clone();
+            for (int i = 0; i < n; i++) {
+                weightCache[i] = weightCache[i].clone();
+            }
+            sharedWeights = false;
+        }
+        weightCache[u][v] = weight;
+        symmetric &= u == v || weight == weightCache[v][u];
+        lowerBound = Double.NaN;
+        if (candidates != null) {
+            candidates[u] = nearestNeighbors(u);
+        }
+        markDirty(u);
+        markDirty(v);
+    }
+
+    /**
+     * Adds a new vertex to the problem and places it in the current tour
+     * at the position of cheapest insertion. The new vertex and the
+     * vertices around it are marked for re-optimization.
+     *
+     * @param outWeights The weights from the new vertex to every existing
+     *                   vertex.
+     * @param inWeights  The weights from every existing vertex to the new
+     *                   vertex.
+     * @return The index of the new vertex.
+     */
+    public int insertVertex(double[] outWeights, double[] inWeights) {
+        int n = vertexCount();
+        if (outWeights.length != n || inWeights.length != n) {
+            throw new IllegalArgumentException("Expected weights for " + n + " vertices");
+        }
+        materializeWeights();
+
+        // Grow the weight cache by one row and one column
+        double[][] grown = new double[n + 1][];
+        for (int i = 0; i < n; i++) {
+            grown[i] = Arrays.copyOf(weightCache[i], n + 1);
+            grown[i][n] = inWeights[i];
+        }
+        grown[n] = Arrays.copyOf(outWeights, n + 1);
+        grown[n][n] = Double.POSITIVE_INFINITY;
+        weightCache = grown;
+        sharedWeights = false;
+        symmetric &= Arrays.equals(outWeights, inWeights);
+        lowerBound = Double.NaN;
+
+        // Only rows whose nearest neighbours now include the new vertex change
+        if (candidates != null) {
+            candidates = Arrays.copyOf(candidates, n + 1);
+            candidates[n] = nearestNeighbors(n);
+            for (int i = 0; i < n; i++) {
+                offerCandidate(i, n);
+            }
+        }
+
+        // Cheapest insertion into the current tour
+        int bestIndex = 0;
+        double bestDelta = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < tour.size(); i++) {
+            int a = tour.get(i);
+            int b = tour.get((i + 1) % tour.size());
+            double delta = weight(a, n) + weight(n, b) - weight(a, b);
+            if (delta < bestDelta) {
+                bestDelta = delta;
+                bestIndex = i + 1;
+            }
+        }
+        tour.add(bestIndex, n);
+
+        markDirty(n);
+        return n;
+    }
+
+    /**
+     * Re-optimizes the regions of the tour touched by {@link #updateWeight}
+     * and {@link #insertVertex} since the last call. Only the marked
+     * vertices start out active, so the cost is proportional to the size
+     * of the affected region rather than the whole tour.
+     *
+     * @return True if the tour was improved.
+     */
+    public boolean reoptimize() {
+        if (dirty.isEmpty()) {
+            return false;
+        }
+        List<Integer> seeds = new ArrayList<>(dirty);
+        dirty.clear();
+        return improveTour(seeds);
+    }
+
+    /**
+     * Polishes the current tour by re-optimizing windows of consecutive
+     * cities exactly. Each window keeps its first and last city fixed and
+     * has the cities in between reordered optimally by Held-Karp; improving
+     * orders are kept. Windows in one pass share at most an endpoint, so
+     * they are independent and are solved in parallel. Passes alternate
+     * between two offsets so that every seam is covered, and repeat until
+     * no window improves.
+     *
+     * @param windowSize The number of cities in each window, 4 to MAX_WINDOW.
+     * @return True if the tour was improved.
+     */
+    public boolean polishWithWindows(int windowSize) {
+        if (windowSize < 4 || windowSize > MAX_WINDOW) {
+            throw new IllegalArgumentException("Window size must be between 4 and " + MAX_WINDOW);
+        }
+        int n = tour.size();
+        if (n < windowSize) {
+            return false;
+        }
+
+        enterPhase("polish");
+        int[] order = tour.stream().mapToInt(Integer::intValue).toArray();
+        int stride = windowSize - 1;
+        int windows = n / stride;
+        boolean improved = false;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int offset : new int[] { 0, stride / 2 }) {
+                long improvements = IntStream.range(0, windows).parallel()
+                        .filter(w -> optimizeWindow(order, offset + w * stride, windowSize))
+                        .count();
+                if (improvements > 0) {
+                    changed = true;
+                    improved = true;
+                }
+            }
+        }
+
+        if (improved) {
+            List<Integer> polished = new ArrayList<>(n);
+            for (int v : order) {
+                polished.add(v);
+            }
+            this.tour = polished;
+            trace.offer(calculateTourCost(polished));
+        }
+        exitPhase();
+        return improved;
+    }
+
+    /**
+     * Re-optimizes one window of the tour exactly and writes the inner
+     * cities back if the new order is cheaper.
+     *
+     * @param order      The tour as an array (updated in place).
+     * @param start      The tour index of the first city of the window.
+     * @param windowSize The number of cities in the window.
+     * @return True if the window was improved.
+     */
+    private boolean optimizeWindow(int[] order, int start, int windowSize) {
+        int n = order.length;
+        int[] path = new int[windowSize];
+        int[] local = new int[windowSize];
+        for (int k = 0; k < windowSize; k++) {
+            path[k] = order[(start + k) % n];
+            local[k] = k;
+        }
+        // Windows run in parallel, so they read the weights into their own matrix
+        double[][] weights = new double[windowSize][windowSize];
+        for (int a = 0; a < windowSize; a++) {
+            for (int b = 0; b < windowSize; b++) {
+                weights[a][b] = closure != null ? closure.weight(path[a], path[b]) : weightCache[path[a]][path[b]];
+            }
+        }
+        int[] best = HeldKarp.optimizePath(weights, local);
+        if (pathCost(weights, best) >= pathCost(weights, local) - GAIN_THRESHOLD) {
+            return false;
+        }
+        for (int k = 1; k < windowSize - 1; k++) {
+            order[(start + k) % n] = path[best[k]];
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cost of an open path.
+     */
+    private static double pathCost(double[][] weights, int[] path) {
+        double cost = 0;
+        for (int k = 0; k + 1 < path.length; k++) {
+            cost += weights[path[k]][path[k + 1]];
+        }
+        return cost;
+    }
+
+    /**
+     * Marks a vertex and its current tour neighbours for re-optimization.
+     *
+     * @param v The vertex that was affected by an update.
+     */
+    private void markDirty(int v) {
+        int i = tour.indexOf(v);
+        dirty.add(v);
+        if (i >= 0) {
+            dirty.add(tour.get((i + 1) % tour.size()));
+            dirty.add(tour.get((i - 1 + tour.size()) % tour.size()));
+        }
+    }
+
+    /**
+     * Runs a 2-opt neighbourhood search over the candidate lists, starting
+     * from the given active vertices, falling back to a sequential k-opt
+     * move when no 2-opt move improves at a vertex. Vertices are only
+     * revisited when a move touches one of their tour edges (don't-look
+     * bits). Once every vertex is stuck, a pass of double-bridge moves is
+     * made from the vertices that were active since the last pass, and the
+     * search goes on from the vertices it touched. A search seeded with a
+     * few vertices therefore never scans the whole tour.
+     *
+     * @param seeds The vertices that start out active.
+     * @return True if the tour was improved.
+     */
+    private boolean improveTour(Iterable<Integer> seeds) {
+        if (tour.size() < 4) {
+            return false;
+        }
+        ensureCandidateLists();
+
+        TourArray t = new TourArray(tour);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        boolean[] queued = new boolean[vertexCount()];
+        boolean[] touched = new boolean[vertexCount()]; // Active since the last double-bridge pass
+        int[] touchedList = new int[vertexCount()];
+        int touchedCount = 0;
+        for (int v : seeds) {
+            if (!queued[v]) {
+                queued[v] = true;
+                queue.add(v);
+            }
+        }
+
+        boolean improved = false;
+        while (true) {
+            while (!queue.isEmpty()) {
+                int t1 = queue.poll();
+                queued[t1] = false;
+                if (!touched[t1]) {
+                    touched[t1] = true;
+                    touchedList[touchedCount++] = t1;
+                }
+                if (twoOptMove(t, t1, queue, queued)) {
+                    improved = true;
+                } else if (moveDepth > 2 && sequentialMove(t, t1, queue, queued)) {
+                    improved = true;
+                }
+            }
+            // The sequential search has stalled
+            if (!doubleBridges || !doubleBridgePass(t, touchedList, touchedCount, touched, queue, queued)) {
+                break;
+            }
+            touchedCount = 0;
+            improved = true;
+        }
+
+        if (improved) {
+            this.tour = t.toList();
+        }
+        return improved;
+    }
+
+    /**
+     * Looks for an improving 2-opt move that removes one of the tour edges
+     * at t1, and applies the first one found. The new edge always comes
+     * from the candidate list of t2, and the search stops as soon as the
+     * partial gain is no longer positive.
+     *
+     * @param t      The tour to improve.
+     * @param t1     The active vertex.
+     * @param queue  The queue of active vertices.
+     * @param queued Flags for the vertices currently in the queue.
+     * @return True if a move was applied.
+     */
+    private boolean twoOptMove(TourArray t, int t1, ArrayDeque<Integer> queue, boolean[] queued) {
+        double before = Double.NaN; // Exact tour cost, only needed on asymmetric weights
+        for (int dir = 0; dir < 2; dir++) {
+            int t2 = dir == 0 ? t.next(t1) : t.prev(t1);
+            if (isFixed(t1, t2)) {
+                continue;
+            }
+            double g1 = weight(t1, t2);
+            for (int t3 : candidates[t2]) {
+                double g = g1 - weight(t2, t3);
+                if (g < GAIN_THRESHOLD) {
+                    break; // Candidates are sorted, so no later one can do better
+                }
+                int t4 = dir == 0 ? t.prev(t3) : t.next(t3);
+                if (t3 == t1 || t4 == t2 || isFixed(t3, t4)) {
+                    continue;
+                }
+                double gain = g + weight(t3, t4) - weight(t4, t1);
+                if (gain > GAIN_THRESHOLD) {
+                    int[] snapshot = null;
+                    if (!symmetric) {
+                        before = Double.isNaN(before) ? cycleCost(t) : before;
+                        snapshot = t.snapshot();
+                    }
+                    if (dir == 0) {
+                        t.reverse(t2, t4);
+                    } else {
+                        t.reverse(t4, t2);
+                    }
+                    if (!symmetric && cycleCost(t) > before - GAIN_THRESHOLD) {
+                        // The reversed path costs more in the other direction
+                        t.restore(snapshot);
+                        continue;
+                    }
+                    movesApplied++;
+                    for (int v : new int[] { t1, t2, t3, t4 }) {
+                        if (!queued[v]) {
+                            queued[v] = true;
+                            queue.add(v);
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks for an improving sequential k-opt move, with 3 <= k <= the move
+     * depth, that removes one of the tour edges at t1, and applies the
+     * first one found. The move is built one exchange at a time: the edge
+     * t(2i)-t(2i+1) is added from the candidate list of t(2i), and either
+     * tour edge at t(2i+1) is removed. The search only goes on while the
+     * partial gain is positive. After every exchange, closing the move with
+     * the edge t(2k)-t1 is tried. Partial moves need not give a tour, so
+     * this reaches the 3-opt and 5-opt reconnections that no sequence of
+     * improving 2-opt moves can.
+     *
+     * @param t      The tour to improve.
+     * @param t1     The active vertex.
+     * @param queue  The queue of active vertices.
+     * @param queued Flags for the vertices currently in the queue.
+     * @return True if a move was applied.
+     */
+    private boolean sequentialMove(TourArray t, int t1, ArrayDeque<Integer> queue, boolean[] queued) {
+        moveT[0] = t1;
+        for (int dir = 0; dir < 2; dir++) {
+            moveT[1] = dir == 0 ? t.next(t1) : t.prev(t1);
+            if (!isFixed(t1, moveT[1]) && extendMove(t, 1, weight(t1, moveT[1]), queue, queued)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds one exchange to a move that has removed k edges and added k - 1.
+     *
+     * @param t    The tour to improve.
+     * @param k    The number of edges removed so far.
+     * @param gain The removed weight minus the added weight so far.
+     * @return True if a move was applied.
+     */
+    private boolean extendMove(TourArray t, int k, double gain, ArrayDeque<Integer> queue, boolean[] queued) {
+        int last = moveT[2 * k - 1];
+        int tried = 0;
+        for (int next : candidates[last]) {
+            double g = gain - weight(last, next);
+            if (g < GAIN_THRESHOLD || tried == MOVE_BREADTH[k - 1]) {
+                break; // Candidates are sorted, so no later one can do better
+            }
+            if (next == t.next(last) || next == t.prev(last) || isAdded(k, last, next)) {
+                continue;
+            }
+            tried++;
+            for (int side = 0; side < 2; side++) {
+                int after = side == 0 ? t.next(next) : t.prev(next);
+                if (isRemoved(k, next, after) || isFixed(next, after)) {
+                    continue;
+                }
+                moveT[2 * k] = next;
+                moveT[2 * k + 1] = after;
+                double total = g + weight(next, after);
+                if (k >= 2 && after != moveT[0] && after != t.next(moveT[0]) && after != t.prev(moveT[0])
+                        && total - weight(after, moveT[0]) > GAIN_THRESHOLD
+                        && closesTour(t, k + 1) && applyMove(t, k + 1, queue, queued)) {
+                    return true;
+                }
+                if (k + 1 < moveDepth && extendMove(t, k + 1, total, queue, queued)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the edge a-b is one of the removed edges t(2i-1)-t(2i)
+     * of the first k exchanges.
+     */
+    private boolean isRemoved(int k, int a, int b) {
+        for (int i = 0; i < k; i++) {
+            int x = moveT[2 * i], y = moveT[2 * i + 1];
+            if ((x == a && y == b) || (x == b && y == a)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the edge a-b is one of the edges t(2i)-t(2i+1) added
+     * by a move that has removed k edges.
+     */
+    private boolean isAdded(int k, int a, int b) {
+        for (int i = 1; i < k; i++) {
+            int x = moveT[2 * i - 1], y = moveT[2 * i];
+            if ((x == a && y == b) || (x == b && y == a)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether closing the move in moveT after k exchanges gives a
+     * single tour. The removed edges are sorted by tour position, which
+     * cuts the tour into k segments; the added edges join segment ends, and
+     * the move is valid when walking them visits every segment before
+     * coming back to the first. The segment layout is left in segStart,
+     * segEnd and the slot arrays for applyMove. Slots are indices into
+     * moveT, so a vertex that loses both tour edges has two slots.
+     *
+     * @param t The current tour.
+     * @param k The number of edges removed.
+     * @return True if the move gives a Hamiltonian cycle.
+     */
+    private boolean closesTour(TourArray t, int k) {
+        for (int i = 0; i < k; i++) {
+            moveFirst[i] = t.next(moveT[2 * i]) == moveT[2 * i + 1] ? 2 * i : 2 * i + 1;
+            int j = i;
+            int p = t.position(moveT[moveFirst[i]]);
+            while (j > 0 && t.position(moveT[moveFirst[moveEdges[j - 1]]]) > p) {
+                moveEdges[j] = moveEdges[j - 1];
+                j--;
+            }
+            moveEdges[j] = i;
+        }
+        for (int s = 0; s < k; s++) {
+            int first = moveFirst[moveEdges[s]];
+            segStart[s] = first ^ 1; // The other endpoint of the same removed edge
+            segEnd[s] = moveFirst[moveEdges[(s + 1) % k]];
+            slotSegment[segStart[s]] = s;
+            slotStarts[segStart[s]] = true;
+            slotSegment[segEnd[s]] = s;
+            slotStarts[segEnd[s]] = false;
+        }
+        int visited = 1;
+        int leave = segEnd[0];
+        while (true) {
+            int enter = partnerSlot(leave, k);
+            int s = slotSegment[enter];
+            if (s == 0) {
+                return visited == k;
+            }
+            visited++;
+            leave = slotStarts[enter] ? segEnd[s] : segStart[s];
+        }
+    }
+
+    /**
+     * Returns the slot joined to the given slot by an added edge.
+     */
+    private static int partnerSlot(int slot, int k) {
+        if (slot == 0) {
+            return 2 * k - 1;
+        }
+        if (slot == 2 * k - 1) {
+            return 0;
+        }
+        return slot % 2 == 1 ? slot + 1 : slot - 1;
+    }
+
+    /**
+     * Applies the move that closesTour just accepted as segment reversals.
+     * Segment 0 stays in place; the walk over the added edges gives the new
+     * order and direction of segments 1..k-1, and the shortest sequence of
+     * reversals that produces it is looked up. Each reversal flips a run of
+     * whole segments on the tour array, so a move costs what its reversed
+     * segments cost, as a 2-opt move does, rather than O(n). On asymmetric
+     * weights the move is undone if the exact tour cost did not improve.
+     *
+     * @param t The tour to change.
+     * @param k The number of edges exchanged.
+     * @return True if the move was kept.
+     */
+    private boolean applyMove(TourArray t, int k, ArrayDeque<Integer> queue, boolean[] queued) {
+        double before = symmetric ? 0 : cycleCost(t);
+        int[] snapshot = symmetric ? null : t.snapshot();
+
+        // The target order of segments 1..k-1, as segment * 2 + 1 if reversed
+        int s = 0;
+        boolean forward = true;
+        for (int p = 0; p < k; p++) {
+            if (p > 0) {
+                moveOrder[p - 1] = 2 * (s - 1) + (forward ? 0 : 1);
+            }
+            int enter = partnerSlot(forward ? segEnd[s] : segStart[s], k);
+            s = slotSegment[enter];
+            forward = slotStarts[enter];
+        }
+        int[] reversals = segmentReversals(moveOrder, k - 1);
+
+        for (int p = 0; p < k; p++) {
+            moveOrder[p] = 2 * p; // Every segment in its original place and direction
+        }
+        for (int r = 0; r < reversals.length; r += 2) {
+            int i = reversals[r] + 1;
+            int j = reversals[r + 1] + 1;
+            int first = segmentEnd(moveOrder[i], true);
+            int last = segmentEnd(moveOrder[j], false);
+            // A reversal may flip the complement instead, so the tour array
+            // can run either way along the segments
+            if (t.next(segmentEnd(moveOrder[i - 1], false)) == first) {
+                t.reverse(first, last);
+            } else {
+                t.reverse(last, first);
+            }
+            reverseSegments(moveOrder, i, j);
+        }
+
+        if (!symmetric && cycleCost(t) > before - GAIN_THRESHOLD) {
+            t.restore(snapshot);
+            return false;
+        }
+        movesApplied++;
+        for (int i = 0; i < 2 * k; i++) {
+            int v = moveT[i];
+            if (!queued[v]) {
+                queued[v] = true;
+                queue.add(v);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the first or last vertex of a segment of the move, in the
+     * direction it is currently walked.
+     *
+     * @param code  The segment * 2, plus 1 if it is reversed.
+     * @param first True for the first vertex, false for the last.
+     */
+    private int segmentEnd(int code, boolean first) {
+        int segment = code >> 1;
+        boolean reversed = (code & 1) == 1;
+        return moveT[first != reversed ? segStart[segment] : segEnd[segment]];
+    }
+
+    /**
+     * Returns the shortest sequence of reversals that turns segments
+     * 0..m-1, in order and unreversed, into the given arrangement. Each
+     * reversal is a pair of positions, first and last, in the arrangement.
+     *
+     * @param arrangement Each segment * 2, plus 1 if it is reversed.
+     * @param m           The number of segments.
+     */
+    static int[] segmentReversals(int[] arrangement, int m) {
+        return SEGMENT_REVERSALS.get(m).get(arrangementKey(arrangement, m));
+    }
+
+    /**
+     * Finds the shortest reversal sequence for every arrangement of up to
+     * MAX_MOVE_DEPTH - 1 segments by breadth-first search from the
+     * unchanged order. There are at most 2^4 * 4! = 384 arrangements.
+     */
+    private static List<Map<Integer, int[]>> buildSegmentReversals() {
+        List<Map<Integer, int[]>> tables = new ArrayList<>();
+        for (int m = 0; m < MAX_MOVE_DEPTH; m++) {
+            Map<Integer, int[]> table = new HashMap<>();
+            int[] identity = new int[m];
+            for (int i = 0; i < m; i++) {
+                identity[i] = 2 * i;
+            }
+            table.put(arrangementKey(identity, m), new int[0]);
+            ArrayDeque<int[]> frontier = new ArrayDeque<>();
+            frontier.add(identity);
+            while (!frontier.isEmpty()) {
+                int[] arrangement = frontier.poll();
+                int[] path = table.get(arrangementKey(arrangement, m));
+                for (int i = 0; i < m; i++) {
+                    for (int j = i; j < m; j++) {
+                        int[] next = arrangement.clone();
+                        reverseSegments(next, i, j);
+                        int key = arrangementKey(next, m);
+                        if (!table.containsKey(key)) {
+                            int[] longer = Arrays.copyOf(path, path.length + 2);
+                            longer[path.length] = i;
+                            longer[path.length + 1] = j;
+                            table.put(key, longer);
+                            frontier.add(next);
+                        }
+                    }
+                }
+            }
+            tables.add(table);
+        }
+        return tables;
+    }
+
+    /**
+     * Reverses the order of positions i..j of an arrangement and flips the
+     * direction of each segment in them.
+     */
+    private static void reverseSegments(int[] arrangement, int i, int j) {
+        for (; i <= j; i++, j--) {
+            int a = arrangement[i] ^ 1;
+            arrangement[i] = arrangement[j] ^ 1;
+            arrangement[j] = a;
+        }
+    }
+
+    private static int arrangementKey(int[] arrangement, int m) {
+        int key = 0;
+        for (int i = 0; i < m; i++) {
+            key = key << 3 | arrangement[i];
+        }
+        return key;
+    }
+
+    /**
+     * Tries a double-bridge move at each vertex that was active since the
+     * last pass, on a tour that no sequential move can improve. The
+     * touched flags are cleared, so that the next pass only sees vertices
+     * that become active again.
+     *
+     * @param t       The tour to improve.
+     * @param touched The vertices active since the last pass.
+     * @param count   The number of vertices in touched.
+     * @param flags   Flags for the vertices in touched (cleared).
+     * @return True if a move was applied.
+     */
+    private boolean doubleBridgePass(TourArray t, int[] touched, int count, boolean[] flags,
+            ArrayDeque<Integer> queue, boolean[] queued) {
+        for (int i = 0; i < count; i++) {
+            flags[touched[i]] = false;
+        }
+        if (t.size() < 8) {
+            return false;
+        }
+        boolean applied = false;
+        for (int i = 0; i < count; i++) {
+            if (doubleBridgeMove(t, touched[i], queue, queued)) {
+                applied = true;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Looks for an improving double-bridge move that removes the tour edge
+     * a-a', and applies the first one found. A double bridge cannot be
+     * built one exchange at a time, so it is found as two infeasible
+     * 2-opt moves. The first removes a-a' and c-c' and adds a-c' and c-a',
+     * which splits the tour into the paths a'..c and c'..a. The second
+     * removes an edge from each path and joins them back into one tour.
+     * Both added edges at a and at the vertex x on the shorter path come
+     * from candidate lists, with the usual positive partial gain. No path
+     * is reversed, so the gain is exact on asymmetric weights too.
+     *
+     * @param t      The tour to improve.
+     * @param a      The active vertex.
+     * @param queue  The queue of active vertices.
+     * @param queued Flags for the vertices currently in the queue.
+     * @return True if a move was applied.
+     */
+    private boolean doubleBridgeMove(TourArray t, int a, ArrayDeque<Integer> queue, boolean[] queued) {
+        bridgeAttempts++;
+        int n = t.size();
+        int a2 = t.next(a);
+        if (isFixed(a, a2)) {
+            return false;
+        }
+        double g1 = weight(a, a2);
+        for (int c2 : candidates[a]) {
+            double g = g1 - weight(a, c2);
+            if (g < GAIN_THRESHOLD) {
+                break; // Candidates are sorted, so no later one can do better
+            }
+            int c = t.prev(c2);
+            if (c2 == a2 || c == a2 || isFixed(c, c2)) {
+                continue; // Both paths need at least one edge to remove
+            }
+            double split = g + weight(c, c2) - weight(c, a2);
+            int length = t.position(c) - t.position(a2);
+            boolean firstShorter = 2 * (length < 0 ? length + n : length) + 2 <= n;
+            int from = firstShorter ? a2 : c2;
+            int to = firstShorter ? c : a;
+            int otherFrom = firstShorter ? c2 : a2;
+            int otherTo = firstShorter ? a : c;
+
+            for (int x = from; x != to; x = t.next(x)) {
+                int x2 = t.next(x);
+                if (isFixed(x, x2)) {
+                    continue;
+                }
+                double h = split + weight(x, x2);
+                for (int y2 : candidates[x]) {
+                    double h2 = h - weight(x, y2);
+                    if (h2 < GAIN_THRESHOLD) {
+                        break;
+                    }
+                    if (y2 == otherFrom || !t.between(otherFrom, y2, otherTo)) {
+                        continue;
+                    }
+                    int y = t.prev(y2);
+                    if (!isFixed(y, y2) && h2 + weight(y, y2) - weight(y, x2) > GAIN_THRESHOLD) {
+                        applyDoubleBridge(t, a, firstShorter ? x : y, c, firstShorter ? y : x, queue, queued);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the double bridge on the tour edges leaving a, b, c and d,
+     * which appear in that order along the tour. The paths A = a'..b,
+     * B = b'..c, C = c'..d and D = d'..a are reconnected as C B A D.
+     */
+    private void applyDoubleBridge(TourArray t, int a, int b, int c, int d,
+            ArrayDeque<Integer> queue, boolean[] queued) {
+        int n = t.size();
+        if (rebuilt == null || rebuilt.length != n) {
+            rebuilt = new int[n];
+        }
+        int a2 = t.next(a), b2 = t.next(b), c2 = t.next(c), d2 = t.next(d);
+        int size = appendPath(t, c2, d, 0);
+        size = appendPath(t, b2, c, size);
+        size = appendPath(t, a2, b, size);
+        appendPath(t, d2, a, size);
+        t.restore(rebuilt);
+
+        movesApplied++;
+        for (int v : new int[] { a, a2, b, b2, c, c2, d, d2 }) {
+            if (!queued[v]) {
+                queued[v] = true;
+                queue.add(v);
+            }
+        }
+    }
+
+    /**
+     * Copies the forward tour path from one vertex to another into rebuilt.
+     *
+     * @return The number of vertices in rebuilt after the path.
+     */
+    private int appendPath(TourArray t, int from, int to, int size) {
+        for (int v = from;; v = t.next(v)) {
+            rebuilt[size++] = v;
+            if (v == to) {
+                return size;
+            }
+        }
+    }
+
+    /**
+     * Returns the cost of the tour held in a TourArray.
+     */
+    private double cycleCost(TourArray t) {
+        double cost = 0;
+        for (int i = 0; i < t.size(); i++) {
+            int v = t.get(i);
+            cost += weight(v, t.next(v));
+        }
+        return cost;
+    }
+
+    /**
+     * Builds the candidate lists the first time they are needed. On
+     * asymmetric weights the 2-opt gain ignores the cost of reversing the
+     * path, so every move is then checked against the exact tour cost.
+     */
+    private void ensureCandidateLists() {
+        if (candidates == null) {
+            // A closure is checked on its sparse graph rather than on n^2 distances
+            symmetric = closure == null || closure.isSymmetric();
+            for (int u = 0; weightCache != null && u < weightCache.length && symmetric; u++) {
+                for (int v = u + 1; v < weightCache.length; v++) {
+                    if (weightCache[u][v] != weightCache[v][u]) {
+                        symmetric = false;
+                        break;
+                    }
+                }
+            }
+            candidates = new int[vertexCount()][];
+            for (int v = 0; v < vertexCount(); v++) {
+                candidates[v] = nearestNeighbors(v);
+            }
+            if (closure != null) {
+                // Most tour edges end up being candidate edges, so these spare most row reads
+                candidateWeights = new double[candidates.length][];
+                for (int v = 0; v < candidates.length; v++) {
+                    double[] row = row(v);
+                    candidateWeights[v] = new double[candidates[v].length];
+                    for (int i = 0; i < candidates[v].length; i++) {
+                        candidateWeights[v][i] = row[candidates[v][i]];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the MAX_CANDIDATES nearest vertices to v, sorted by
+     * increasing weight. Missing edges (infinite weights) are left out.
+     *
+     * @param v The vertex to find neighbours for.
+     * @return The nearest neighbours of v.
+     */
+    private int[] nearestNeighbors(int v) {
+        double[] row = row(v);
+        int k = Math.min(MAX_CANDIDATES, row.length - 1);
+        int[] best = new int[Math.max(k, 0)];
+        int size = Kernels.nearest(row, v, best, new double[best.length]);
+        return size == best.length ? best : Arrays.copyOf(best, size);
+    }
+
+    /**
+     * Adds u to the candidate list of v if it is closer than the current
+     * furthest candidate.
+     *
+     * @param v The vertex whose candidate list is updated.
+     * @param u The vertex being offered.
+     */
+    private void offerCandidate(int v, int u) {
+        double w = weight(v, u);
+        if (Double.isNaN(w) || Double.isInfinite(w)) {
+            return;
+        }
+        int[] list = candidates[v];
+        int k = Math.min(MAX_CANDIDATES, vertexCount() - 1);
+        if (k == 0 || list.length == k && w >= weight(v, list[k - 1])) {
+            return;
+        }
+        int[] updated = Arrays.copyOf(list, Math.min(list.length + 1, k));
+        int i = updated.length - 1;
+        while (i > 0 && weight(v, updated[i - 1]) > w) {
+            updated[i] = updated[i - 1];
+            i--;
+        }
+        updated[i] = u;
+        candidates[v] = updated;
+    }
+
+    /**
+     * Returns the cached weight of the edge from u to v.
+     */
+    private double weight(int u, int v) {
+        if (weightCache != null) {
+            return weightCache[u][v];
+        }
+        if (memoVertex[u & (ROW_MEMO - 1)] == u) {
+            return memoRow[u & (ROW_MEMO - 1)][v];
+        }
+        if (edgeTarget[u] == v) {
+            return edgeWeight[u];
+        }
+        if (candidateWeights != null) {
+            int[] list = candidates[u];
+            for (int i = 0; i < list.length; i++) {
+                if (list[i] == v) {
+                    return candidateWeights[u][i];
+                }
+            }
+        }
+        double w = row(u)[v];
+        edgeTarget[u] = v;
+        edgeWeight[u] = w;
+        return w;
+    }
+
+    /**
+     * Returns the weights from u. Closure rows are memoized in a few
+     * direct-mapped slots, since the search reads the same rows in bursts;
+     * a row evicted from the closure stays valid here until replaced.
+     * Not thread-safe.
+     */
+    private double[] row(int u) {
+        if (weightCache != null) {
+            return weightCache[u];
+        }
+        int slot = u & (ROW_MEMO - 1);
+        if (memoVertex[slot] != u) {
+            memoRow[slot] = closure.row(u);
+            memoVertex[slot] = u;
+        }
+        return memoRow[slot];
+    }
+
+    /**
+     * Returns the number of vertices in the problem.
+     */
+    private int vertexCount() {
+        return weightCache != null ? weightCache.length : closure.vertices();
+    }
+
+    /**
+     * Copies every closure row into weightCache before the first write.
+     * From then on the solver holds all n^2 weights, as it does for any
+     * other graph.
+     */
+    private void materializeWeights() {
+        if (closure == null) {
+            return;
+        }
+        int n = closure.vertices();
+        double[][] rows = new double[n][];
+        for (int i = 0; i < n; i++) {
+            rows[i] = closure.computeRow(i);
+        }
+        weightCache = rows;
+        closure = null;
+        candidateWeights = null;
+        edgeTarget = null;
+        edgeWeight = null;
+        Arrays.fill(memoVertex, -1);
+        Arrays.fill(memoRow, null);
     }
 
     /**
@@ -104,26 +1614,127 @@ public class LinKernighan {
      * returning the shuffled list.
      * This method generates a random starting tour by creating a list of all
      * vertices in the graph and then
-     * shuffling the order of the vertices to create a randomized path.
+     * shuffling the order of the vertices with the solver's seeded random source.
      * 
      * @return A list of integers representing the vertices in a random order,
      *         forming the initial tour.
      */
     private List<Integer> initializeRandomTour() {
+        if (backbone != null) {
+            return initializeBackboneTour();
+        }
         List<Integer> initialTour = new ArrayList<>();
-        for (int i = 0; i < graph.vertices(); i++) {
+        for (int i = 0; i < vertexCount(); i++) {
             initialTour.add(i);
         }
-        Collections.shuffle(initialTour);
+        Collections.shuffle(initialTour, random);
         return initialTour;
     }
 
+    /**
+     * Builds a random tour that contains every backbone edge. The fixed
+     * edges form vertex-disjoint paths, so the paths are shuffled, each is
+     * given a random direction, and they are joined end to end.
+     *
+     * @return A random tour through the backbone.
+     */
+    private List<Integer> initializeBackboneTour() {
+        int n = vertexCount();
+        boolean[] placed = new boolean[n];
+        List<List<Integer>> paths = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            if (placed[v] || (backbone[v][0] >= 0 && backbone[v][1] >= 0)) {
+                continue; // Paths are walked from one of their ends
+            }
+            List<Integer> path = new ArrayList<>();
+            for (int prev = -1, u = v; u >= 0;) {
+                path.add(u);
+                placed[u] = true;
+                int next = backbone[u][0] >= 0 && backbone[u][0] != prev ? backbone[u][0] : backbone[u][1];
+                prev = u;
+                u = next >= 0 && !placed[next] ? next : -1;
+            }
+            if (random.nextBoolean()) {
+                Collections.reverse(path);
+            }
+            paths.add(path);
+        }
+        Collections.shuffle(paths, random);
+
+        List<Integer> initialTour = new ArrayList<>(n);
+        for (List<Integer> path : paths) {
+            initialTour.addAll(path);
+        }
+        return initialTour;
+    }
+
+    /**
+     * Counts how often the edges of the first restart's tour appear in the
+     * current tour. After the last backbone restart, the edges found in
+     * every one of them become fixed.
+     *
+     * @return True if every edge is fixed, so no later restart can differ.
+     */
+    private boolean recordBackbone() {
+        int n = tour.size();
+        if (n < 5) {
+            return false;
+        }
+        if (sharedEdges == null) {
+            sharedEdges = new int[n][2];
+            sharedCounts = new int[n][2];
+            for (int i = 0; i < n; i++) {
+                int v = tour.get(i);
+                sharedEdges[v][0] = tour.get((i + n - 1) % n);
+                sharedEdges[v][1] = tour.get((i + 1) % n);
+                sharedCounts[v][0] = 1;
+                sharedCounts[v][1] = 1;
+            }
+        } else {
+            int[] pos = new int[n];
+            for (int i = 0; i < n; i++) {
+                pos[tour.get(i)] = i;
+            }
+            for (int v = 0; v < n; v++) {
+                for (int slot = 0; slot < 2; slot++) {
+                    int gap = Math.abs(pos[v] - pos[sharedEdges[v][slot]]);
+                    if (gap == 1 || gap == n - 1) {
+                        sharedCounts[v][slot]++;
+                    }
+                }
+            }
+        }
+        if (restartsCompleted < backboneRestarts) {
+            return false;
+        }
+
+        backbone = sharedEdges;
+        int fixed = 0;
+        for (int v = 0; v < n; v++) {
+            for (int slot = 0; slot < 2; slot++) {
+                if (sharedCounts[v][slot] < backboneRestarts) {
+                    backbone[v][slot] = -1;
+                } else {
+                    fixed++;
+                }
+            }
+        }
+        backboneSize = fixed / 2;
+        return backboneSize == n;
+    }
+
+    /**
+     * Returns true if backbone mode has fixed the edge u-v.
+     */
+    private boolean isFixed(int u, int v) {
+        return backbone != null && (backbone[u][0] == v || backbone[u][1] == v);
+    }
+
     /**
      * Retrieves the top candidate edges for a given vertex in the current tour.
      * The candidate edges are the edges with the smallest weights that connect the
-     * current vertex to any other vertex in the graph.
-     * The method uses a priority queue to keep track of the top edges with the
-     * smallest weights.
+     * current vertex to any other vertex in the graph, taken from the candidate
+     * lists so that no weight row is scanned.
      * 
      * @param index The index of the vertex in the current tour for which the
      *              candidate edges are to be found.
@@ -131,34 +1742,12 @@ public class LinKernighan {
      *         ascending order.
      */
     private List<Edge> getCandidateEdges(int index) {
-        List<Edge> candidates = new ArrayList<>();
+        ensureCandidateLists();
         int current = tour.get(index);
-
-        // PriorityQueue to store the top MAX_CANDIDATES edges with the smallest weight.
-        PriorityQueue<Edge> queue = new PriorityQueue<>(MAX_CANDIDATES, Comparator.comparingDouble(e -> e.weight));
-
-        // Iterate through all vertices to find the candidate edges
-        for (int i = 0; i < graph.vertices(); i++) {
-            if (i != current) {
-                double weight = graph.weight(current, i);
-                Edge edge = new Edge(current, i, weight);
-
-                // Add the edge to the priority queue
-                if (queue.size() < MAX_CANDIDATES) {
-                    queue.offer(edge); // Add the edge if there is have space
-                } else if (queue.peek().weight > weight) {
-                    queue.poll(); // Remove the largest edge if the new one is smaller
-                    queue.offer(edge); // Add the new edge
-                }
-            }
-        }
-
-        // Transfer the edges from the priority queue to a list
-        while (!queue.isEmpty()) {
-            candidates.add(queue.poll());
+        List<Edge> candidates = new ArrayList<>(this.candidates[current].length);
+        for (int v : this.candidates[current]) {
+            candidates.add(new Edge(current, v, weight(current, v)));
         }
-
-        // Return the top candidate edges
         return candidates;
     }
 
@@ -178,6 +1767,7 @@ public class LinKernighan {
      *         or edge breaking).
      */
     private boolean attemptDynamicKOpt(int i, Edge candidate, int maxDepth) {
+        kOptAttempts++;
         List<Integer> currentTour = new ArrayList<>(tour);
         double initialCost = calculateTourCost(tour);
         double cumulativeGain = 0;
@@ -186,6 +1776,7 @@ public class LinKernighan {
 
         if (improved) {
             this.tour = currentTour; // Update the tour if improved
+            movesApplied++; // Count the kept swap chain, not its undone attempts
         }
 
         // Now try to optimize the tour by breaking edges if necessary
@@ -235,7 +1826,11 @@ public class LinKernighan {
         int c = candidate.u;
         int d = candidate.v;
 
-        double gain = graph.weight(a, b) + graph.weight(c, d) - graph.weight(a, c) - graph.weight(b, d);
+        double gain = weight(a, b) + weight(c, d) - weight(a, c) - weight(b, d);
+        if (backbone != null && (isFixed(a, b)
+                || isFixed(d, currentTour.get((currentTour.indexOf(d) + 1) % currentTour.size())))) {
+            return false; // The swap would remove a backbone edge
+        }
 
         // Avoid adding gains that are too small
         if (gain < GAIN_THRESHOLD) {
@@ -355,12 +1950,36 @@ public class LinKernighan {
      *         if invalid edge weights or overflow are encountered.
      */
     double calculateTourCost(List<Integer> tour) {
+        int n = tour.size();
+        if (costOrder == null || costOrder.length < n) {
+            costOrder = new int[n];
+        }
+        for (int i = 0; i < n; i++) {
+            costOrder[i] = tour.get(i);
+        }
+        double sum;
+        if (weightCache != null) {
+            sum = Kernels.cycleCost(weightCache, costOrder, n);
+        } else {
+            if (costWeights == null || costWeights.length < n) {
+                costWeights = new double[n];
+            }
+            for (int i = 0; i < n; i++) {
+                costWeights[i] = weight(costOrder[i], costOrder[i + 1 == n ? 0 : i + 1]);
+            }
+            sum = Kernels.sum(costWeights, n); // Added in the same order as cycleCost
+        }
+        if (!Double.isNaN(sum) && !Double.isInfinite(sum)) {
+            return sum;
+        }
+
+        // Walk the tour again to report the edge that made the cost invalid
         double totalCost = 0.0;
 
         for (int i = 0; i < tour.size(); i++) {
             int u = tour.get(i);
             int v = tour.get((i + 1) % tour.size());
-            double edgeWeight = graph.weight(u, v);
+            double edgeWeight = weight(u, v);
 
             // Gracefully handle invalid edge weight (NaN, Infinity) by skipping the edge or
             // applying a penalty
@@ -407,13 +2026,19 @@ public class LinKernighan {
 
         int t2i = getLastVertex(broken);
 
-        // Iterate over possible edges to break
-        for (int t2iPlus1 : graph.out(t2i)) {
+        // Iterate over possible edges to break, with one reusable cursor per depth
+        NeighborCursor cursor = cursors[k];
+        if (cursor == null) {
+            cursor = cursors[k] = graph.outCursor();
+        }
+        cursor.reset(t2i);
+        while (cursor.hasNext()) {
+            int t2iPlus1 = cursor.next();
             if (wasAlreadyChosen(t2iPlus1, broken) || isNeighbor(t2i, t2iPlus1)) {
                 continue; // Skip already chosen edges or neighbors
             }
 
-            Edge newEdge = new Edge(t2i, t2iPlus1, graph.weight(t2i, t2iPlus1));
+            Edge newEdge = new Edge(t2i, t2iPlus1, weight(t2i, t2iPlus1));
             broken.add(newEdge);
 
             // Calculate gain after breaking the edge
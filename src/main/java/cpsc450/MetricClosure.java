@@ -0,0 +1,578 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Read-only Graph view of the shortest-path distances of a sparse graph.
+ *
+ * The weight from x to y is the length of the shortest path from x to y in
+ * the underlying graph, and there is an edge whenever y is reachable from
+ * x. Distance rows are computed on demand with Dijkstra and kept in a cache
+ * bounded by a byte budget. When the cache is over budget, rows that have
+ * not been used recently are evicted, picked with the clock approximation
+ * of LRU. Lookups never take a lock, so many solver threads can read rows
+ * at once; a row missed by several threads at the same time is computed
+ * once.
+ *
+ * Rows can be prefetched in the background, and with setPrefetchCandidates
+ * every computed row also prefetches the rows of its nearest cities, which
+ * are the ones a candidate-list search will visit next.
+ */
+public class MetricClosure implements Graph {
+
+    static final long DEFAULT_CACHE_BYTES = 64L << 20;
+    private static final long ROW_OVERHEAD = 64; // Approximate bytes per cached row besides the distances
+
+    private final int n;
+    private final int[] offsets;    // CSR copy of the underlying out edges
+    private final int[] targets;
+    private final double[] lengths;
+    private final int[] inOffsets;  // CSR copy of the underlying in edges
+    private final int[] sources;
+    private final double[] inLengths;
+
+    private final long cacheBytes;
+    private final Map<Integer, Row> rows = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private int hand; // Next vertex the eviction clock looks at, guarded by this
+    private final AtomicInteger prefetching = new AtomicInteger(); // Prefetch tasks queued or running
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile int prefetchCandidates;
+    private volatile int edgeCount = -1;
+
+    /**
+     * A cached distance row. The future completes once the row is computed.
+     */
+    private static class Row {
+        final CompletableFuture<double[]> distances = new CompletableFuture<>();
+        final long bytes;
+        volatile boolean referenced = true; // Used since the clock last passed
+
+        Row(long bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Creates a metric closure view with the default cache budget.
+     * @param graph The sparse graph, with non-negative edge weights
+     */
+    public MetricClosure(Graph graph) {
+        this(graph, DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * Creates a metric closure view.
+     * @param graph The sparse graph, with non-negative edge weights
+     * @param cacheBytes The most bytes of distance rows to keep cached
+     * @throws GraphException if an edge has a negative or NaN weight
+     */
+    public MetricClosure(Graph graph, long cacheBytes) {
+        if (cacheBytes <= 0) {
+            throw new IllegalArgumentException("Cache budget must be positive");
+        }
+        this.n = graph.vertices();
+        this.cacheBytes = cacheBytes;
+
+        // Copy the out edges into flat arrays, then transpose them
+        this.offsets = new int[n + 1];
+        for (int x = 0; x < n; x++) {
+            offsets[x + 1] = offsets[x] + graph.outDegree(x);
+        }
+        this.targets = new int[offsets[n]];
+        this.lengths = new double[offsets[n]];
+        NeighborCursor cursor = graph.outCursor();
+        for (int x = 0; x < n; x++) {
+            int e = offsets[x];
+            for (cursor.reset(x); cursor.hasNext(); e++) {
+                int y = cursor.next();
+                double w = graph.weight(x, y);
+                if (!(w >= 0)) {
+                    throw new GraphException("Shortest paths need non-negative weights, found " + w);
+                }
+                targets[e] = y;
+                lengths[e] = w;
+            }
+        }
+        this.inOffsets = new int[n + 1];
+        for (int y : targets) {
+            inOffsets[y + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        this.sources = new int[targets.length];
+        this.inLengths = new double[targets.length];
+        int[] fill = Arrays.copyOf(inOffsets, n);
+        for (int x = 0; x < n; x++) {
+            for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+                int slot = fill[targets[e]]++;
+                sources[slot] = x;
+                inLengths[slot] = lengths[e];
+            }
+        }
+    }
+
+    /**
+     * Makes every computed row prefetch the rows of its k nearest cities
+     * in the background. Zero turns candidate prefetching off.
+     * @param k The number of nearest cities to prefetch
+     */
+    public void setPrefetchCandidates(int k) {
+        this.prefetchCandidates = Math.max(0, k);
+    }
+
+    /**
+     * Starts computing the rows of the given vertices in the background.
+     * Rows that are already cached or being computed are skipped, and so
+     * is everything once twice the common pool's parallelism worth of
+     * prefetches are pending, so prefetching never floods the pool.
+     * @param vertices The vertices whose rows will be needed soon
+     */
+    public void prefetch(int... vertices) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int limit = 2 * pool.getParallelism();
+        for (int v : vertices) {
+            if (isValidVertex(v) && !rows.containsKey(v)) {
+                if (prefetching.incrementAndGet() > limit) {
+                    prefetching.decrementAndGet();
+                    return;
+                }
+                pool.execute(() -> {
+                    try {
+                        row(v, false);
+                    } finally {
+                        prefetching.decrementAndGet();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Returns the number of row lookups answered from the cache.
+     */
+    public long getCacheHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of rows computed because they were not cached.
+     */
+    public long getCacheMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the bytes currently held by cached rows.
+     */
+    public long getCachedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Returns the distance row of x, computing it if needed. The row is
+     * shared with the cache and must not be modified.
+     */
+    double[] row(int x) {
+        return row(x, true);
+    }
+
+    private double[] row(int x, boolean prefetchNeighbors) {
+        Row row = rows.get(x);
+        if (row != null) {
+            hits.increment();
+            if (!row.referenced) {
+                row.referenced = true; // Only written when it changes, so hot rows stay unshared
+            }
+            return join(row);
+        }
+
+        Row created = new Row((long) n * Double.BYTES + ROW_OVERHEAD);
+        row = rows.putIfAbsent(x, created);
+        if (row != null) {
+            hits.increment(); // Another thread is computing it
+            return join(row);
+        }
+
+        misses.increment();
+        usedBytes.addAndGet(created.bytes);
+        double[] distances;
+        try {
+            distances = shortestPaths(x, offsets, targets, lengths);
+            created.distances.complete(distances);
+        } catch (RuntimeException | Error e) {
+            rows.remove(x, created);
+            usedBytes.addAndGet(-created.bytes);
+            created.distances.completeExceptionally(e);
+            throw e;
+        }
+        if (usedBytes.get() > cacheBytes) {
+            evict(x);
+        }
+        int k = prefetchCandidates;
+        if (prefetchNeighbors && k > 0) {
+            prefetch(nearest(distances, x, k));
+        }
+        return distances;
+    }
+
+    private static double[] join(Row row) {
+        try {
+            return row.distances.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Drops rows until the cache is within budget, using a clock over the
+     * vertex ids: a row used since the hand last passed it gets a second
+     * chance, any other finished row is dropped. Two turns of the hand
+     * clear every reference bit, so the loop always ends. Lookups never
+     * take the lock; only evictions are serialized. The row just computed
+     * is never dropped, so a budget smaller than one row still keeps the
+     * row in use.
+     */
+    private synchronized void evict(int keep) {
+        for (int turned = 0; turned < 2 * n && usedBytes.get() > cacheBytes; turned++) {
+            int v = hand;
+            hand = v + 1 == n ? 0 : v + 1;
+            Row row = rows.get(v);
+            if (row == null || v == keep || !row.distances.isDone()) {
+                continue;
+            }
+            if (row.referenced) {
+                row.referenced = false;
+            } else if (rows.remove(v, row)) {
+                usedBytes.addAndGet(-row.bytes);
+            }
+        }
+    }
+
+    /**
+     * Returns true if every underlying edge has a reverse edge of the same
+     * length, so that every distance equals its reverse. An asymmetric
+     * underlying graph may still have a symmetric closure; that case
+     * reports false.
+     */
+    boolean isSymmetric() {
+        for (int x = 0; x < n; x++) {
+            for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+                int y = targets[e];
+                boolean found = false;
+                for (int r = offsets[y]; r < offsets[y + 1] && !found; r++) {
+                    found = targets[r] == x && lengths[r] == lengths[e];
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the distance row of x without caching it.
+     */
+    double[] computeRow(int x) {
+        return shortestPaths(x, offsets, targets, lengths);
+    }
+
+    /**
+     * Computes the distances from every vertex to x without caching them,
+     * by running Dijkstra over the reversed edges.
+     */
+    double[] computeReverseRow(int x) {
+        return shortestPaths(x, inOffsets, sources, inLengths);
+    }
+
+    /**
+     * Runs Dijkstra from a source over a CSR edge list.
+     * @return The distances from the source, with infinity for unreachable
+     *         vertices and for the source itself
+     */
+    private double[] shortestPaths(int source, int[] offsets, int[] targets, double[] lengths) {
+        double[] dist = new double[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        int[] heap = new int[n];      // Binary min-heap of vertices keyed by dist
+        int[] position = new int[n];  // Index of each vertex in the heap, -1 if absent
+        Arrays.fill(position, -1);
+        int size = 0;
+
+        dist[source] = 0;
+        heap[size] = source;
+        position[source] = size++;
+        while (size > 0) {
+            int u = heap[0];
+            position[u] = -2; // Settled
+            int last = heap[--size];
+            if (size > 0) {
+                siftDown(heap, position, dist, size, 0, last);
+            }
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                double d = dist[u] + lengths[e];
+                if (position[v] != -2 && d < dist[v]) {
+                    dist[v] = d;
+                    if (position[v] == -1) {
+                        position[v] = size++;
+                    }
+                    siftUp(heap, position, dist, position[v], v);
+                }
+            }
+        }
+        dist[source] = Double.POSITIVE_INFINITY; // No self edges in the closure
+        return dist;
+    }
+
+    private static void siftUp(int[] heap, int[] position, double[] dist, int i, int v) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (dist[heap[parent]] <= dist[v]) {
+                break;
+            }
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = v;
+        position[v] = i;
+    }
+
+    private static void siftDown(int[] heap, int[] position, double[] dist, int size, int i, int v) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && dist[heap[child + 1]] < dist[heap[child]]) {
+                child++;
+            }
+            if (dist[heap[child]] >= dist[v]) {
+                break;
+            }
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = v;
+        position[v] = i;
+    }
+
+    /**
+     * Returns the k vertices closest to x in a distance row.
+     */
+    private static int[] nearest(double[] distances, int x, int k) {
+        int[] best = new int[k];
+        int count = Kernels.nearest(distances, x, best, new double[k]);
+        return Arrays.copyOf(best, count);
+    }
+
+    /**
+     * The closure is computed from the underlying graph and is read-only.
+     * @throws GraphException always
+     */
+    @Override
+    public void addEdge(int x, int y) {
+        throw new GraphException("MetricClosure is a read-only view");
+    }
+
+    /**
+     * The closure is computed from the underlying graph and is read-only.
+     * @throws GraphException always
+     */
+    @Override
+    public void removeEdge(int x, int y) {
+        throw new GraphException("MetricClosure is a read-only view");
+    }
+
+    /**
+     * Get the vertices reachable from a given vertex.
+     */
+    @Override
+    public Set<Integer> out(int x) {
+        Set<Integer> reachable = new HashSet<>();
+        forEachOut(x, reachable::add);
+        return reachable;
+    }
+
+    /**
+     * Get the vertices that can reach a given vertex. This runs Dijkstra on
+     * the reversed graph and is not cached.
+     */
+    @Override
+    public Set<Integer> in(int x) {
+        Set<Integer> reaching = new HashSet<>();
+        if (isValidVertex(x)) {
+            double[] distances = shortestPaths(x, inOffsets, sources, inLengths);
+            for (int y = 0; y < n; y++) {
+                if (distances[y] != Double.POSITIVE_INFINITY) {
+                    reaching.add(y);
+                }
+            }
+        }
+        return reaching;
+    }
+
+    /**
+     * Get the vertices that reach or are reachable from a given vertex.
+     */
+    @Override
+    public Set<Integer> adj(int x) {
+        Set<Integer> adjacent = out(x);
+        adjacent.addAll(in(x));
+        return adjacent;
+    }
+
+    /**
+     * Check if vertex y is reachable from vertex x.
+     */
+    @Override
+    public boolean hasEdge(int x, int y) {
+        return weight(x, y) != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Check if a vertex exists in the graph.
+     */
+    @Override
+    public boolean hasVertex(int x) {
+        return isValidVertex(x);
+    }
+
+    /**
+     * Get the number of vertices in the graph.
+     */
+    @Override
+    public int vertices() {
+        return n;
+    }
+
+    /**
+     * Get the number of reachable pairs. The first call computes every row.
+     */
+    @Override
+    public int edges() {
+        if (edgeCount < 0) {
+            int count = 0;
+            for (int x = 0; x < n; x++) {
+                count += outDegree(x);
+            }
+            edgeCount = count;
+        }
+        return edgeCount;
+    }
+
+    /**
+     * Returns a list of all reachable pairs with their distances. This
+     * computes every row.
+     */
+    @Override
+    public List<Edge> getAllEdges() {
+        List<Edge> edges = new ArrayList<>();
+        for (int x = 0; x < n; x++) {
+            double[] distances = row(x);
+            for (int y = 0; y < n; y++) {
+                if (distances[y] != Double.POSITIVE_INFINITY) {
+                    edges.add(new Edge(x, y, distances[y]));
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Get the shortest-path distance from x to y, or positive infinity if y
+     * is not reachable from x.
+     */
+    @Override
+    public double weight(int x, int y) {
+        if (isValidVertex(x) && isValidVertex(y)) {
+            return row(x)[y];
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the number of vertices in the graph.
+     */
+    @Override
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns an array of neighbors for the given node.
+     * Neighbors are all the vertices that reach or are reachable from the current node.
+     */
+    @Override
+    public int[] getNeighbors(int currentNode) {
+        if (!isValidVertex(currentNode)) {
+            throw new IllegalArgumentException("Invalid node index");
+        }
+        return adj(currentNode).stream().mapToInt(i -> i).toArray();
+    }
+
+    /**
+     * Get the number of vertices reachable from a given vertex.
+     */
+    @Override
+    public int outDegree(int x) {
+        int[] degree = new int[1];
+        forEachOut(x, y -> degree[0]++);
+        return degree[0];
+    }
+
+    /**
+     * Walk the vertices reachable from a given vertex.
+     */
+    @Override
+    public void forEachOut(int x, IntConsumer action) {
+        if (isValidVertex(x)) {
+            double[] distances = row(x);
+            for (int y = 0; y < n; y++) {
+                if (distances[y] != Double.POSITIVE_INFINITY) {
+                    action.accept(y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy a distance row into dst.
+     */
+    @Override
+    public void copyWeightRow(int x, double[] dst) {
+        if (isValidVertex(x)) {
+            System.arraycopy(row(x), 0, dst, 0, n);
+        } else {
+            Arrays.fill(dst, 0, n, Double.POSITIVE_INFINITY);
+        }
+    }
+
+    private boolean isValidVertex(int v) {
+        return v >= 0 && v < n;
+    }
+}
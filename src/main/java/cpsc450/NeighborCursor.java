@@ -0,0 +1,76 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.util.Arrays;
+
+/**
+ * A reusable iterator over the out neighbours of a vertex. A cursor is
+ * obtained once from Graph.outCursor() and then reset to each vertex in
+ * turn, so walking neighbours does not create a set per vertex. A cursor
+ * must not be used after the graph is modified until it is reset.
+ */
+public interface NeighborCursor {
+
+    /**
+     * Positions the cursor before the first out neighbour of x. If x is an
+     * invalid vertex the cursor is empty.
+     * @param x The vertex whose out neighbours to walk.
+     * @return This cursor.
+     */
+    NeighborCursor reset(int x);
+
+    /**
+     * Returns true if there is another out neighbour.
+     */
+    boolean hasNext();
+
+    /**
+     * Returns the next out neighbour.
+     */
+    int next();
+
+    /**
+     * Cursor for graphs without a native one. The neighbours of each vertex
+     * are copied into a buffer that grows as needed and is reused across
+     * resets.
+     */
+    class Buffered implements NeighborCursor {
+        private final Graph graph;
+        private int[] buffer = new int[16];
+        private int size;
+        private int index;
+
+        Buffered(Graph graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public NeighborCursor reset(int x) {
+            size = 0;
+            index = 0;
+            graph.forEachOut(x, y -> {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, size * 2);
+                }
+                buffer[size++] = y;
+            });
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public int next() {
+            return buffer[index++];
+        }
+    }
+}
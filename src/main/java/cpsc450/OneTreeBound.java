@@ -0,0 +1,278 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.util.Arrays;
+
+/**
+ * Computes the Held-Karp lower bound on the optimal tour cost using
+ * subgradient optimization over 1-trees.
+ *
+ * A 1-tree is a minimum spanning tree over vertices 1..n-1 plus the two
+ * cheapest edges at vertex 0. Every tour is a 1-tree, so its cost is a
+ * lower bound. Adding penalties pi to the vertices does not change which
+ * tour is optimal but does change the 1-tree, and the subgradient method
+ * searches for the penalties that give the largest bound. For directed
+ * graphs the bound uses min(w(i, j), w(j, i)) as the edge weight, which
+ * keeps it valid.
+ *
+ * Over a MetricClosure the weights are never copied: every 1-tree reads
+ * one distance row at a time through the closure's cache, so the bound
+ * holds no more than the closure's budget plus a few rows. For a directed
+ * closure the distances into each vertex are computed alongside its row,
+ * without caching them. Each 1-tree reads all n rows, so once they do not
+ * fit the budget every subgradient iteration recomputes them.
+ */
+public class OneTreeBound {
+
+    private static final int DEFAULT_ITERATIONS = 200;
+    private static final int PATIENCE = 10; // Iterations without progress before halving the step
+
+    private final double[][] weights; // Null when the rows are read from closure
+    private final MetricClosure closure;
+    private final double[] smaller;   // Scratch row for a directed closure, null otherwise
+    private final int n;
+    private double[] bestPenalties;
+    private boolean isTour;
+
+    /**
+     * Creates a bound calculator for the given graph.
+     *
+     * @param graph The graph representing the TSP problem.
+     */
+    public OneTreeBound(Graph graph) {
+        this.closure = graph instanceof MetricClosure ? (MetricClosure) graph : null;
+        if (closure != null) {
+            this.n = closure.vertices();
+            this.weights = null;
+            this.smaller = closure.isSymmetric() ? null : new double[n];
+        } else {
+            this.n = graph.vertices();
+            this.weights = symmetrize(copyWeights(graph));
+            this.smaller = null;
+        }
+    }
+
+    /**
+     * Creates a bound calculator over a weight matrix. Asymmetric entries
+     * are reduced to the smaller of the two directions.
+     *
+     * @param weights The weight matrix.
+     */
+    OneTreeBound(double[][] weights) {
+        this.n = weights.length;
+        this.weights = symmetrize(weights);
+        this.closure = null;
+        this.smaller = null;
+    }
+
+    /**
+     * Computes the bound without knowing an upper bound on the tour cost.
+     *
+     * @return The lower bound.
+     */
+    public double compute() {
+        return compute(Double.NaN);
+    }
+
+    /**
+     * Computes the bound. A known tour cost steers the step size and ends
+     * the search as soon as the bound reaches it.
+     *
+     * @param upperBound The cost of a known tour, or NaN if none is known.
+     * @return The lower bound.
+     */
+    public double compute(double upperBound) {
+        if (n == 1) {
+            return 0;
+        }
+        if (n == 2) {
+            return 2 * row(0)[1];
+        }
+
+        double[] pi = new double[n];
+        int[] degree = new int[n];
+        double best = oneTree(pi, degree);
+        bestPenalties = pi.clone();
+        isTour = allDegreesTwo(degree);
+        if (isTour || Double.isInfinite(best)) {
+            return best;
+        }
+
+        double current = best;
+        double step = stepScale(best, upperBound);
+        int sinceImprovement = 0;
+        for (int iteration = 0; iteration < DEFAULT_ITERATIONS && step > 1e-12; iteration++) {
+            double norm = 0;
+            for (int i = 0; i < n; i++) {
+                norm += (degree[i] - 2) * (degree[i] - 2);
+            }
+            double length = Double.isNaN(upperBound) ? step : step * (upperBound - current) / norm;
+            for (int i = 0; i < n; i++) {
+                pi[i] += length * (degree[i] - 2);
+            }
+
+            current = oneTree(pi, degree);
+            if (current > best + 1e-12) {
+                best = current;
+                bestPenalties = pi.clone();
+                sinceImprovement = 0;
+            } else if (++sinceImprovement >= PATIENCE) {
+                step /= 2;
+                sinceImprovement = 0;
+            }
+            if (allDegreesTwo(degree)) {
+                isTour = true;
+                break;
+            }
+            if (!Double.isNaN(upperBound) && best >= upperBound - 1e-9) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns true if the last computed 1-tree was a tour, which makes the
+     * bound equal to the optimal cost (for symmetric weights).
+     */
+    public boolean isOptimal() {
+        return isTour;
+    }
+
+    /**
+     * Returns the vertex penalties that produced the best bound.
+     */
+    public double[] getPenalties() {
+        return bestPenalties == null ? new double[n] : bestPenalties.clone();
+    }
+
+    /**
+     * Returns the initial step size. With an upper bound this is the
+     * Polyak multiplier; without one it is a small fraction of the
+     * average edge in the first 1-tree.
+     */
+    private double stepScale(double bound, double upperBound) {
+        return Double.isNaN(upperBound) ? Math.abs(bound) / n * 0.1 : 2.0;
+    }
+
+    /**
+     * Computes the minimum 1-tree for the given penalties.
+     *
+     * @param pi     The vertex penalties.
+     * @param degree The degree of each vertex in the 1-tree (output).
+     * @return The penalized 1-tree cost minus twice the sum of penalties.
+     */
+    double oneTree(double[] pi, int[] degree) {
+        Arrays.fill(degree, 0);
+        double cost = 0;
+
+        // Prim's algorithm over vertices 1..n-1
+        double[] key = new double[n];
+        int[] parent = new int[n];
+        boolean[] inTree = new boolean[n];
+        Arrays.fill(key, Double.POSITIVE_INFINITY);
+        key[1] = 0;
+        parent[1] = -1;
+        for (int added = 0; added < n - 1; added++) {
+            int u = -1;
+            for (int v = 1; v < n; v++) {
+                if (!inTree[v] && (u == -1 || key[v] < key[u])) {
+                    u = v;
+                }
+            }
+            inTree[u] = true;
+            double[] fromU = row(u);
+            if (parent[u] >= 0) {
+                cost += key[u];
+                degree[u]++;
+                degree[parent[u]]++;
+            }
+            for (int v = 1; v < n; v++) {
+                if (!inTree[v]) {
+                    double w = fromU[v] + pi[u] + pi[v];
+                    if (w < key[v]) {
+                        key[v] = w;
+                        parent[v] = u;
+                    }
+                }
+            }
+        }
+
+        // The two cheapest edges at vertex 0
+        double[] fromZero = row(0);
+        int first = -1, second = -1;
+        for (int v = 1; v < n; v++) {
+            double w = fromZero[v] + pi[v];
+            if (first == -1 || w < fromZero[first] + pi[first]) {
+                second = first;
+                first = v;
+            } else if (second == -1 || w < fromZero[second] + pi[second]) {
+                second = v;
+            }
+        }
+        cost += fromZero[first] + pi[0] + pi[first] + fromZero[second] + pi[0] + pi[second];
+        degree[0] = 2;
+        degree[first]++;
+        degree[second]++;
+
+        double penaltySum = 0;
+        for (double p : pi) {
+            penaltySum += p;
+        }
+        return cost - 2 * penaltySum;
+    }
+
+    private static boolean allDegreesTwo(int[] degree) {
+        for (int d : degree) {
+            if (d != 2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the weights from u, each the smaller of the two directions.
+     * The row must only be read until the next call.
+     */
+    private double[] row(int u) {
+        if (closure == null) {
+            return weights[u];
+        }
+        double[] out = closure.row(u);
+        if (smaller == null) {
+            return out;
+        }
+        double[] in = closure.computeReverseRow(u);
+        for (int v = 0; v < n; v++) {
+            smaller[v] = Math.min(out[v], in[v]);
+        }
+        return smaller;
+    }
+
+    private static double[][] symmetrize(double[][] weights) {
+        int n = weights.length;
+        double[][] result = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                result[i][j] = Math.min(weights[i][j], weights[j][i]);
+            }
+        }
+        return result;
+    }
+
+    private static double[][] copyWeights(Graph graph) {
+        int n = graph.vertices();
+        double[][] weights = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            graph.copyWeightRow(i, weights[i]);
+        }
+        return weights;
+    }
+}
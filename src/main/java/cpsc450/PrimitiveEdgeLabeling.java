@@ -0,0 +1,227 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Base class for edge labelings that store one primitive value per edge.
+ *
+ * Edges are numbered in compressed-sparse-row order: the out edges of x are
+ * offsets[x] .. offsets[x + 1], sorted by target. For a CsrGraph these are
+ * the graph's own arrays, so label i belongs to edge i of the graph; for
+ * other graphs the same index is built once from a snapshot of the edges.
+ * Only edges present at construction can be labeled.
+ */
+abstract class PrimitiveEdgeLabeling {
+    protected final Graph graph;
+    private final int[] offsets;
+    private final int[] targets;
+    private final long[] labeled; // bit e is set if edge e has a label
+
+    PrimitiveEdgeLabeling(Graph g) {
+        this.graph = g;
+        if (g instanceof CsrGraph) {
+            this.offsets = ((CsrGraph) g).rowOffsets();
+            this.targets = ((CsrGraph) g).rowTargets();
+        } else {
+            int n = g.vertices();
+            this.offsets = new int[n + 1];
+            for (int x = 0; x < n; x++) {
+                offsets[x + 1] = offsets[x] + g.outDegree(x);
+            }
+            this.targets = new int[offsets[n]];
+            int[] fill = Arrays.copyOf(offsets, n);
+            for (int x = 0; x < n; x++) {
+                final int row = x;
+                g.forEachOut(x, y -> targets[fill[row]++] = y);
+                Arrays.sort(targets, offsets[x], offsets[x + 1]);
+            }
+        }
+        this.labeled = new long[(targets.length + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    /**
+     * Returns the number of edges that can be labeled.
+     */
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Returns true if the edge from u to v has a label.
+     */
+    public boolean hasLabel(int u, int v) {
+        int e = find(u, v);
+        return e >= 0 && isLabeled(e);
+    }
+
+    /**
+     * Removes the label of the edge from u to v, if there is one.
+     */
+    public void removeLabel(int u, int v) {
+        int e = find(u, v);
+        if (e >= 0) {
+            labeled[e >>> 6] &= ~(1L << e);
+        }
+    }
+
+    /**
+     * Returns a read-only view of the graph whose edge weights are the
+     * labels. Unlabeled pairs keep the graph's own weight. The view can
+     * be handed to any solver; copyWeightRow overlays the labels of a row
+     * onto the graph's row without boxing.
+     *
+     * @return The labeled graph.
+     */
+    public Graph asGraph() {
+        return new Weighted();
+    }
+
+    /**
+     * Returns the label of edge e as a weight.
+     */
+    abstract double weightAt(int e);
+
+    /**
+     * Returns the index of the edge from u to v, or throws if there is no
+     * such edge.
+     */
+    int indexOf(int u, int v) {
+        int e = find(u, v);
+        if (e < 0) {
+            throw new GraphException("No edge from " + u + " to " + v + " to label");
+        }
+        return e;
+    }
+
+    /**
+     * Returns the index of the edge from u to v, or -1 if there is none.
+     */
+    int find(int u, int v) {
+        if (u < 0 || u >= offsets.length - 1) {
+            return -1;
+        }
+        int e = Arrays.binarySearch(targets, offsets[u], offsets[u + 1], v);
+        return e >= 0 ? e : -1;
+    }
+
+    boolean isLabeled(int e) {
+        return (labeled[e >>> 6] & (1L << e)) != 0;
+    }
+
+    void markLabeled(int e) {
+        labeled[e >>> 6] |= 1L << e;
+    }
+
+    /**
+     * Graph view whose weights come from the labels.
+     */
+    private class Weighted implements Graph {
+
+        @Override
+        public void addEdge(int x, int y) {
+            throw new GraphException("A labeled graph view is read-only");
+        }
+
+        @Override
+        public void removeEdge(int x, int y) {
+            throw new GraphException("A labeled graph view is read-only");
+        }
+
+        @Override
+        public Set<Integer> out(int x) {
+            return graph.out(x);
+        }
+
+        @Override
+        public Set<Integer> in(int x) {
+            return graph.in(x);
+        }
+
+        @Override
+        public Set<Integer> adj(int x) {
+            return graph.adj(x);
+        }
+
+        @Override
+        public boolean hasEdge(int x, int y) {
+            return graph.hasEdge(x, y);
+        }
+
+        @Override
+        public boolean hasVertex(int x) {
+            return graph.hasVertex(x);
+        }
+
+        @Override
+        public int vertices() {
+            return graph.vertices();
+        }
+
+        @Override
+        public int edges() {
+            return graph.edges();
+        }
+
+        @Override
+        public List<Edge> getAllEdges() {
+            List<Edge> edges = graph.getAllEdges();
+            for (Edge edge : edges) {
+                edge.weight = weight(edge.u, edge.v);
+            }
+            return edges;
+        }
+
+        @Override
+        public double weight(int x, int y) {
+            int e = find(x, y);
+            return e >= 0 && isLabeled(e) ? weightAt(e) : graph.weight(x, y);
+        }
+
+        @Override
+        public int size() {
+            return graph.size();
+        }
+
+        @Override
+        public int[] getNeighbors(int currentNode) {
+            return graph.getNeighbors(currentNode);
+        }
+
+        @Override
+        public int outDegree(int x) {
+            return graph.outDegree(x);
+        }
+
+        @Override
+        public void forEachOut(int x, IntConsumer action) {
+            graph.forEachOut(x, action);
+        }
+
+        @Override
+        public NeighborCursor outCursor() {
+            return graph.outCursor();
+        }
+
+        @Override
+        public void copyWeightRow(int x, double[] dst) {
+            graph.copyWeightRow(x, dst);
+            if (x >= 0 && x < offsets.length - 1) {
+                for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+                    if (isLabeled(e)) {
+                        dst[targets[e]] = weightAt(e);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shrinks a TSP instance before search by fixing the edges every tour must
+ * use.
+ *
+ * Edges are treated as undirected for the analysis. A vertex with exactly
+ * two neighbours must use both of them in any tour through the graph's
+ * edges, so both edges are forced. A vertex with two forced edges cannot
+ * use any of its other edges, which are then excluded, and that can leave
+ * further vertices with only two neighbours; this is repeated until
+ * nothing changes.
+ *
+ * The forced edges form paths. Each path is contracted to its two end
+ * vertices, joined by a locked edge that stands for the whole path: its
+ * weight in each direction is the cost of walking the path that way minus
+ * a constant large enough that every optimal tour of the reduced instance
+ * uses all locked edges. Vertices inside a path disappear. The reduced
+ * instance is solved as usual and expand() puts the paths back.
+ */
+public class ProblemReduction {
+
+    private final Graph graph;
+    private final List<int[]> segments = new ArrayList<>(); // Fixed paths, single vertices included
+    private final int[] firstNode;  // Reduced node of the first vertex of each segment
+    private final DistanceMatrix reduced;
+    private final double lockBonus; // Subtracted from the weight of every locked edge
+    private int forcedEdges;
+    private boolean hamiltonian;    // The forced edges already form a tour
+
+    /**
+     * Analyses a graph and builds its reduced instance.
+     *
+     * @param graph The graph representing the TSP problem.
+     * @throws GraphException if the forced edges show that the graph has
+     *                        no tour.
+     */
+    public ProblemReduction(Graph graph) {
+        this.graph = graph;
+        int n = graph.vertices();
+        int[][] forced = findForcedEdges(n);
+        buildSegments(n, forced);
+
+        // Number the reduced nodes: one per single vertex, two per path
+        this.firstNode = new int[segments.size()];
+        List<Integer> ports = new ArrayList<>();
+        for (int s = 0; s < segments.size(); s++) {
+            int[] path = segments.get(s);
+            firstNode[s] = ports.size();
+            ports.add(path[0]);
+            if (path.length > 1 && !hamiltonian) {
+                ports.add(path[path.length - 1]);
+            }
+        }
+
+        // Large enough to outweigh any difference between two tours
+        double maxWeight = 0;
+        double[] row = new double[n];
+        for (int x = 0; x < n; x++) {
+            graph.copyWeightRow(x, row);
+            for (int y = 0; y < n; y++) {
+                if (x != y && Double.isFinite(row[y])) {
+                    maxWeight = Math.max(maxWeight, Math.abs(row[y]));
+                }
+            }
+        }
+        this.lockBonus = 2 * n * maxWeight + 1;
+
+        int m = ports.size();
+        double[][] weights = new double[m][m];
+        for (int r = 0; r < m; r++) {
+            graph.copyWeightRow(ports.get(r), row);
+            for (int c = 0; c < m; c++) {
+                weights[r][c] = r == c ? Double.POSITIVE_INFINITY : row[ports.get(c)];
+            }
+        }
+        for (int s = 0; s < segments.size(); s++) {
+            int[] path = segments.get(s);
+            if (path.length > 1 && !hamiltonian) {
+                int a = firstNode[s];
+                weights[a][a + 1] = pathCost(path, false) - lockBonus;
+                weights[a + 1][a] = pathCost(path, true) - lockBonus;
+            }
+        }
+        this.reduced = new DistanceMatrix(weights);
+    }
+
+    /**
+     * Solves the reduced instance with Lin-Kernighan and expands the tour.
+     *
+     * @return A tour of the original graph.
+     */
+    public List<Integer> run() {
+        if (reduced.vertices() == 1) {
+            return expand(List.of(0));
+        }
+        LinKernighan lk = new LinKernighan(reduced);
+        lk.run();
+        return expand(lk.getTour());
+    }
+
+    /**
+     * Returns the reduced instance. Its vertices are the single vertices
+     * and the path ends of the original graph.
+     */
+    public Graph getReducedGraph() {
+        return reduced;
+    }
+
+    /**
+     * Returns the number of edges fixed into every tour.
+     */
+    public int getForcedEdgeCount() {
+        return forcedEdges;
+    }
+
+    /**
+     * Maps a tour of the reduced instance back to the original graph. Each
+     * locked edge in the tour is replaced by its path, walked in the
+     * direction the tour crosses it.
+     *
+     * @param reducedTour A tour of the reduced graph.
+     * @return The corresponding tour of the original graph.
+     */
+    public List<Integer> expand(List<Integer> reducedTour) {
+        int m = reduced.vertices();
+        if (reducedTour.size() != m) {
+            throw new IllegalArgumentException("Expected a tour of " + m + " reduced vertices");
+        }
+        if (hamiltonian) {
+            List<Integer> tour = new ArrayList<>();
+            for (int v : segments.get(0)) {
+                tour.add(v);
+            }
+            return tour;
+        }
+
+        // Which segment each reduced node belongs to, and whether it is the end
+        int[] segmentOf = new int[m];
+        boolean[] isEnd = new boolean[m];
+        for (int s = 0; s < segments.size(); s++) {
+            segmentOf[firstNode[s]] = s;
+            if (segments.get(s).length > 1) {
+                segmentOf[firstNode[s] + 1] = s;
+                isEnd[firstNode[s] + 1] = true;
+            }
+        }
+
+        List<Integer> tour = new ArrayList<>(graph.vertices());
+        boolean[] done = new boolean[segments.size()];
+        for (int i = 0; i < m; i++) {
+            int node = reducedTour.get(i);
+            int s = segmentOf[node];
+            if (done[s]) {
+                continue;
+            }
+            done[s] = true;
+            int[] path = segments.get(s);
+            if (path.length == 1) {
+                tour.add(path[0]);
+                continue;
+            }
+            // Walk the path in the direction the tour crosses the locked
+            // edge; the first node seen is the exit when the tour wraps
+            // around to its partner. If the solver dropped the locked edge
+            // the path still stays whole.
+            int partner = isEnd[node] ? node - 1 : node + 1;
+            boolean exit = reducedTour.get((i + m - 1) % m) == partner;
+            if (isEnd[node] != exit) {
+                for (int k = path.length - 1; k >= 0; k--) {
+                    tour.add(path[k]);
+                }
+            } else {
+                for (int v : path) {
+                    tour.add(v);
+                }
+            }
+        }
+        return tour;
+    }
+
+    /**
+     * Finds the forced edges by repeatedly applying the degree-2 rule.
+     *
+     * @return For each vertex, its forced neighbours (-1 where unused).
+     */
+    private int[][] findForcedEdges(int n) {
+        List<Set<Integer>> available = new ArrayList<>(n);
+        for (int x = 0; x < n; x++) {
+            Set<Integer> neighbours = graph.adj(x);
+            neighbours.remove(x);
+            available.add(neighbours);
+        }
+        int[][] forced = new int[n][2];
+        for (int[] pair : forced) {
+            Arrays.fill(pair, -1);
+        }
+        if (n < 3) {
+            return forced;
+        }
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int x = 0; x < n; x++) {
+            queue.add(x);
+        }
+        while (!queue.isEmpty()) {
+            int x = queue.poll();
+            Set<Integer> neighbours = available.get(x);
+            if (neighbours.size() == 2) {
+                for (int y : neighbours) {
+                    if (force(forced, x, y)) {
+                        queue.add(y);
+                    }
+                }
+            }
+            if (forced[x][1] >= 0 && neighbours.size() > 2) {
+                // Both tour edges of x are known, so its other edges are excluded
+                for (int y : new ArrayList<>(neighbours)) {
+                    if (y != forced[x][0] && y != forced[x][1]) {
+                        neighbours.remove(y);
+                        available.get(y).remove(x);
+                        queue.add(y);
+                    }
+                }
+            }
+        }
+        return forced;
+    }
+
+    /**
+     * Forces the edge between x and y.
+     *
+     * @return True if the edge was not forced before.
+     * @throws GraphException if x or y would get more than two tour edges.
+     */
+    private boolean force(int[][] forced, int x, int y) {
+        if (forced[x][0] == y || forced[x][1] == y) {
+            return false;
+        }
+        for (int v : new int[] { x, y }) {
+            if (forced[v][1] >= 0) {
+                throw new GraphException("Vertex " + v + " is forced into more than two tour edges, so the graph has no tour");
+            }
+        }
+        forced[x][forced[x][0] < 0 ? 0 : 1] = y;
+        forced[y][forced[y][0] < 0 ? 0 : 1] = x;
+        forcedEdges++;
+        return true;
+    }
+
+    /**
+     * Splits the vertices into maximal forced paths and single vertices.
+     *
+     * @throws GraphException if the forced edges close a cycle that is not
+     *                        a tour.
+     */
+    private void buildSegments(int n, int[][] forced) {
+        boolean[] visited = new boolean[n];
+        // Paths start at vertices with fewer than two forced edges
+        for (int x = 0; x < n; x++) {
+            if (!visited[x] && forced[x][1] < 0) {
+                List<Integer> path = new ArrayList<>();
+                int previous = -1;
+                int v = x;
+                while (v >= 0) {
+                    visited[v] = true;
+                    path.add(v);
+                    int next = forced[v][0] != previous ? forced[v][0] : forced[v][1];
+                    previous = v;
+                    v = next >= 0 && !visited[next] ? next : -1;
+                }
+                segments.add(path.stream().mapToInt(i -> i).toArray());
+            }
+        }
+        // Anything left lies on a cycle of forced edges
+        for (int x = 0; x < n; x++) {
+            if (!visited[x]) {
+                List<Integer> cycle = new ArrayList<>();
+                int previous = forced[x][1];
+                int v = x;
+                do {
+                    cycle.add(v);
+                    int next = forced[v][0] != previous ? forced[v][0] : forced[v][1];
+                    previous = v;
+                    v = next;
+                } while (v != x);
+                if (cycle.size() != n) {
+                    throw new GraphException("Forced edges close a subtour, so the graph has no tour");
+                }
+                segments.add(cycle.stream().mapToInt(i -> i).toArray());
+                hamiltonian = true;
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the cost of walking a path forwards or backwards.
+     */
+    private double pathCost(int[] path, boolean backwards) {
+        double cost = 0;
+        for (int i = 0; i + 1 < path.length; i++) {
+            cost += backwards ? graph.weight(path[i + 1], path[i]) : graph.weight(path[i], path[i + 1]);
+        }
+        return cost;
+    }
+}
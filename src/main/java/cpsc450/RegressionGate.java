@@ -0,0 +1,310 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares benchmark results against a committed baseline.
+ *
+ * A baseline file is the per-run CSV of Benchmark with two header
+ * comments: the workload options that produced it, so the gate can rerun
+ * exactly the same configurations, and a calibration time. The calibration
+ * is the fastest time of a fixed Held-Karp solve on the machine that ran the
+ * benchmark. Latencies are divided by it before they are compared, which
+ * takes out most of the difference between a developer machine and CI.
+ *
+ * A configuration regresses when its runs are significantly worse than
+ * the baseline runs inflated by the tolerance: a one-sided Mann-Whitney U
+ * test of current latencies against baseline latencies * (1 + tolerance),
+ * and of current costs against baseline costs * (1 + quality tolerance),
+ * at significance ALPHA. Small slowdowns and noisy runs therefore pass,
+ * and only consistent shifts beyond the tolerance fail. Bytes allocated
+ * per solve do not depend on the machine, so they are compared unscaled
+ * against baseline * (1 + ALLOCATION_TOLERANCE); this is the allocation
+ * budget of each configuration.
+ */
+public class RegressionGate {
+
+    static final double ALPHA = 0.01;                // Significance level of the tests
+    static final double LATENCY_TOLERANCE = 0.25;    // Allowed relative slowdown
+    static final double QUALITY_TOLERANCE = 0.01;    // Allowed relative increase in tour cost
+    static final double ALLOCATION_TOLERANCE = 0.10; // Allowed relative increase in bytes allocated
+    static final int CALIBRATION_WARMUP = 20;
+    static final int CALIBRATION_RUNS = 15;
+    static final String WORKLOAD = "# workload";
+    static final String CALIBRATION = "# calibration_ms";
+
+    /**
+     * The runs of a baseline file.
+     */
+    public static class Baseline {
+        final String workload;     // The options the baseline was measured with
+        final double calibration;  // Calibration time of the baseline machine, in ms
+        final Map<String, List<double[]>> runs = new LinkedHashMap<>(); // {latency ms, cost, bytes} per run, by configuration
+
+        Baseline(String workload, double calibration) {
+            this.workload = workload;
+            this.calibration = calibration;
+        }
+    }
+
+    /**
+     * The comparison of one configuration with its baseline.
+     */
+    public static class Comparison {
+        final String configuration;
+        double baselineP50 = Double.NaN;   // Scaled to the current machine, in ms
+        double currentP50 = Double.NaN;
+        double throughputRatio = Double.NaN;
+        double baselineCost = Double.NaN;  // Mean over the runs
+        double currentCost = Double.NaN;
+        double baselineBytes = Double.NaN; // Mean allocation per solve
+        double currentBytes = Double.NaN;
+        double latencyP = Double.NaN;
+        double qualityP = Double.NaN;
+        final List<String> problems = new ArrayList<>();
+
+        Comparison(String configuration) {
+            this.configuration = configuration;
+        }
+
+        /**
+         * Returns true if the configuration regressed or could not be compared.
+         */
+        public boolean regressed() {
+            return !problems.isEmpty();
+        }
+    }
+
+    /**
+     * Times a fixed Held-Karp solve, the unit that latencies are compared in.
+     * @return The fastest time in milliseconds
+     */
+    static double calibrate() {
+        DistanceMatrix g = InstanceGenerator.uniform(14, 0);
+        for (int i = 0; i < CALIBRATION_WARMUP; i++) {
+            new HeldKarp(g).run();
+        }
+        long[] times = new long[CALIBRATION_RUNS];
+        for (int i = 0; i < times.length; i++) {
+            long start = System.nanoTime();
+            new HeldKarp(g).run();
+            times[i] = System.nanoTime() - start;
+        }
+        return Arrays.stream(times).min().getAsLong() / 1e6; // The fastest run is the least noisy
+    }
+
+    /**
+     * Writes results as a baseline file.
+     * @param file        The file to write
+     * @param results     The results
+     * @param workload    The benchmark options that produced them
+     * @param calibration The calibration time of this machine, in ms
+     */
+    public static void save(Path file, List<Benchmark.Result> results, String workload, double calibration)
+            throws IOException {
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file))) {
+            w.println(WORKLOAD + " " + workload);
+            w.println(String.format(Locale.ROOT, "%s %.6f", CALIBRATION, calibration));
+            Benchmark.writeCsv(w, results);
+        }
+    }
+
+    /**
+     * Reads a baseline file.
+     * @param file The file to read
+     * @return The baseline
+     * @throws IllegalArgumentException if the file is not a baseline
+     */
+    public static Baseline load(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        if (lines.size() < 3 || !lines.get(0).startsWith(WORKLOAD) || !lines.get(1).startsWith(CALIBRATION)) {
+            throw new IllegalArgumentException(file + " is not a benchmark baseline");
+        }
+        Baseline baseline = new Baseline(lines.get(0).substring(WORKLOAD.length()).trim(),
+                Double.parseDouble(lines.get(1).substring(CALIBRATION.length()).trim()));
+        // instance,solver,vertices,threads,run,latency_ms,cost,reference,gap,alloc_bytes,gc_ms
+        for (String line : lines.subList(3, lines.size())) {
+            String[] f = line.split(",");
+            double cost = f[6].equals("null") ? Double.POSITIVE_INFINITY : Double.parseDouble(f[6]);
+            double bytes = f.length > 9 ? Double.parseDouble(f[9]) : Double.NaN; // Older baselines have no allocation
+            baseline.runs.computeIfAbsent(key(f[0], f[1], Integer.parseInt(f[3])), k -> new ArrayList<>())
+                    .add(new double[] { Double.parseDouble(f[5]), cost, bytes });
+        }
+        return baseline;
+    }
+
+    /**
+     * Compares results with a baseline.
+     * @param baseline    The baseline
+     * @param results     The current results
+     * @param calibration The calibration time of this machine, in ms
+     * @param tolerance   The allowed relative slowdown
+     * @return One comparison per configuration in either set
+     */
+    public static List<Comparison> compare(Baseline baseline, List<Benchmark.Result> results, double calibration,
+            double tolerance) {
+        double scale = calibration / baseline.calibration; // Baseline ms to current-machine ms
+        Map<String, Comparison> comparisons = new LinkedHashMap<>();
+        for (Benchmark.Result r : results) {
+            String key = key(r.instance, r.solver, r.threads);
+            Comparison c = new Comparison(key);
+            comparisons.put(key, c);
+            double[] latencies = Arrays.stream(r.latencyNanos).mapToDouble(t -> t / 1e6).toArray();
+            c.currentP50 = median(latencies);
+            c.currentCost = r.meanCost();
+            c.currentBytes = r.meanAllocatedBytes();
+
+            List<double[]> base = baseline.runs.get(key);
+            if (base == null) {
+                c.problems.add("not in baseline");
+                continue;
+            }
+            double[] baseLatencies = base.stream().mapToDouble(run -> run[0] * scale).toArray();
+            double[] baseCosts = base.stream().mapToDouble(run -> run[1]).toArray();
+            c.baselineP50 = median(baseLatencies);
+            c.baselineCost = Arrays.stream(baseCosts).average().orElse(Double.NaN);
+            c.throughputRatio = Arrays.stream(baseLatencies).sum() / baseLatencies.length
+                    / (Arrays.stream(latencies).sum() / latencies.length);
+
+            c.latencyP = mannWhitneyGreater(latencies, inflate(baseLatencies, tolerance));
+            if (c.latencyP < ALPHA) {
+                c.problems.add("slower");
+            }
+            c.qualityP = mannWhitneyGreater(r.costs, inflate(baseCosts, QUALITY_TOLERANCE));
+            if (c.qualityP < ALPHA) {
+                c.problems.add("worse tours");
+            }
+            double[] baseBytes = base.stream().mapToDouble(run -> run[2]).toArray();
+            c.baselineBytes = Arrays.stream(baseBytes).average().orElse(Double.NaN);
+            if (!Double.isNaN(c.baselineBytes) && AllocationProfiler.isSupported()) {
+                double[] bytes = Arrays.stream(r.allocatedBytes).asDoubleStream().toArray();
+                if (mannWhitneyGreater(bytes, inflate(baseBytes, ALLOCATION_TOLERANCE)) < ALPHA) {
+                    c.problems.add("over allocation budget");
+                }
+            }
+        }
+        for (String key : baseline.runs.keySet()) {
+            if (!comparisons.containsKey(key)) {
+                Comparison c = new Comparison(key);
+                c.problems.add("not measured");
+                comparisons.put(key, c);
+            }
+        }
+        return new ArrayList<>(comparisons.values());
+    }
+
+    /**
+     * Formats comparisons as a Markdown table.
+     * @param comparisons The comparisons
+     * @param tolerance   The latency tolerance that was used
+     * @return The report
+     */
+    public static String report(List<Comparison> comparisons, double tolerance) {
+        StringBuilder s = new StringBuilder();
+        long regressions = comparisons.stream().filter(Comparison::regressed).count();
+        s.append(String.format(Locale.ROOT,
+                "Benchmark diff: %d of %d configurations regressed (latency tolerance %.0f%%, cost tolerance %.0f%%, alpha %.2f)%n%n",
+                regressions, comparisons.size(), 100 * tolerance, 100 * QUALITY_TOLERANCE, ALPHA));
+        s.append("| configuration | p50 base (ms) | p50 now (ms) | latency | throughput | cost base | cost now | cost | alloc base (KB) | alloc now (KB) | p latency | p cost | status |\n");
+        s.append("|---|---|---|---|---|---|---|---|---|---|---|---|---|\n");
+        for (Comparison c : comparisons) {
+            s.append(String.format(Locale.ROOT, "| %s | %.3f | %.3f | %s | %s | %.3f | %.3f | %s | %.1f | %.1f | %.4f | %.4f | %s |%n",
+                    c.configuration, c.baselineP50, c.currentP50, change(c.currentP50 / c.baselineP50),
+                    change(c.throughputRatio), c.baselineCost, c.currentCost, change(c.currentCost / c.baselineCost),
+                    c.baselineBytes / 1e3, c.currentBytes / 1e3,
+                    c.latencyP, c.qualityP, c.regressed() ? "REGRESSION: " + String.join(", ", c.problems) : "ok"));
+        }
+        return s.toString();
+    }
+
+    /**
+     * Returns the one-sided p-value of the Mann-Whitney U test that values
+     * in a tend to be greater than values in b, using the normal
+     * approximation with tie and continuity corrections.
+     */
+    static double mannWhitneyGreater(double[] a, double[] b) {
+        int n1 = a.length;
+        int n2 = b.length;
+        int n = n1 + n2;
+        double[][] all = new double[n][];
+        for (int i = 0; i < n1; i++) {
+            all[i] = new double[] { a[i], 0 };
+        }
+        for (int i = 0; i < n2; i++) {
+            all[n1 + i] = new double[] { b[i], 1 };
+        }
+        Arrays.sort(all, (x, y) -> Double.compare(x[0], y[0]));
+
+        double rankSumA = 0;
+        double ties = 0;
+        for (int i = 0; i < n;) {
+            int j = i;
+            while (j < n && all[j][0] == all[i][0]) {
+                j++;
+            }
+            double rank = (i + 1 + j) / 2.0; // Average of ranks i+1 .. j
+            for (int k = i; k < j; k++) {
+                if (all[k][1] == 0) {
+                    rankSumA += rank;
+                }
+            }
+            double t = j - i;
+            ties += t * t * t - t;
+            i = j;
+        }
+        double u = rankSumA - n1 * (n1 + 1) / 2.0;
+        double mean = n1 * (double) n2 / 2;
+        double variance = n1 * (double) n2 / 12 * ((n + 1) - ties / ((double) n * (n - 1)));
+        if (variance <= 0) {
+            return 1; // Every value is the same
+        }
+        double z = (u - mean - 0.5) / Math.sqrt(variance);
+        return 1 - normalCdf(z);
+    }
+
+    /**
+     * Standard normal distribution function (Abramowitz and Stegun 7.1.26).
+     */
+    static double normalCdf(double z) {
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * x);
+        double erf = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741
+                + t * (-1.453152027 + t * 1.061405429)))) * Math.exp(-x * x);
+        return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+    }
+
+    private static String key(String instance, String solver, int threads) {
+        return instance + " " + solver + " x" + threads;
+    }
+
+    private static double[] inflate(double[] values, double tolerance) {
+        return Arrays.stream(values).map(v -> v * (1 + tolerance)).toArray();
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int m = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[m] : (sorted[m - 1] + sorted[m]) / 2;
+    }
+
+    private static String change(double ratio) {
+        return Double.isFinite(ratio) ? String.format(Locale.ROOT, "%+.1f%%", 100 * (ratio - 1)) : "n/a";
+    }
+}
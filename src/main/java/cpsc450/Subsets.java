@@ -0,0 +1,93 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+/**
+ * Combinatorial number system helpers for enumerating the k-element
+ * subsets of {0, ..., m - 1} as bitmasks. Subsets of a fixed size are
+ * ranked in colexicographic order, which is the same as increasing
+ * numeric order of the masks.
+ */
+class Subsets {
+
+    private final long[][] binomial; // binomial[a][b] = a choose b
+
+    /**
+     * Creates the binomial table for subsets of up to m elements.
+     *
+     * @param m The size of the ground set.
+     */
+    Subsets(int m) {
+        binomial = new long[m + 1][m + 1];
+        for (int a = 0; a <= m; a++) {
+            binomial[a][0] = 1;
+            for (int b = 1; b <= a; b++) {
+                binomial[a][b] = binomial[a - 1][b - 1] + binomial[a - 1][b];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of k-element subsets of an a-element set.
+     */
+    long choose(int a, int k) {
+        return k < 0 || k > a ? 0 : binomial[a][k];
+    }
+
+    /**
+     * Returns the colex rank of the given subset among all subsets of the
+     * same size.
+     *
+     * @param mask The subset as a bitmask.
+     * @return The rank of the subset.
+     */
+    long rank(long mask) {
+        long rank = 0;
+        int t = 1;
+        while (mask != 0) {
+            int c = Long.numberOfTrailingZeros(mask);
+            rank += choose(c, t++);
+            mask &= mask - 1;
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the k-element subset with the given colex rank.
+     *
+     * @param rank The rank of the subset.
+     * @param k    The size of the subset.
+     * @return The subset as a bitmask.
+     */
+    long unrank(long rank, int k) {
+        long mask = 0;
+        int c = binomial.length - 1;
+        for (int t = k; t >= 1; t--) {
+            while (choose(c, t) > rank) {
+                c--;
+            }
+            mask |= 1L << c;
+            rank -= choose(c, t);
+            c--;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the next larger subset with the same number of elements
+     * (Gosper's hack).
+     *
+     * @param mask A non-empty subset.
+     * @return The next subset in colex order.
+     */
+    static long next(long mask) {
+        long lowest = mask & -mask;
+        long ripple = mask + lowest;
+        return (((ripple ^ mask) >>> 2) / lowest) | ripple;
+    }
+}
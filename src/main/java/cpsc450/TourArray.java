@@ -0,0 +1,150 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Array representation of a tour used by the local search. Keeps the
+ * visiting order together with the position of every vertex so that
+ * successor, predecessor and between queries run in constant time.
+ */
+class TourArray {
+
+    private final int[] order; // order[i] is the i-th vertex of the tour
+    private final int[] pos;   // pos[v] is the index of v in order
+    private final int n;
+
+    /**
+     * Creates the array representation of the given tour.
+     *
+     * @param tour The tour as a list of vertices.
+     */
+    TourArray(List<Integer> tour) {
+        this.n = tour.size();
+        this.order = new int[n];
+        this.pos = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = tour.get(i);
+            pos[order[i]] = i;
+        }
+    }
+
+    /**
+     * Returns the number of vertices in the tour.
+     */
+    int size() {
+        return n;
+    }
+
+    /**
+     * Returns the vertex at the given index of the tour.
+     */
+    int get(int index) {
+        return order[index];
+    }
+
+    /**
+     * Returns the index of vertex v in the tour.
+     */
+    int position(int v) {
+        return pos[v];
+    }
+
+    /**
+     * Returns the vertex visited after v.
+     */
+    int next(int v) {
+        int i = pos[v] + 1;
+        return order[i == n ? 0 : i];
+    }
+
+    /**
+     * Returns the vertex visited before v.
+     */
+    int prev(int v) {
+        int i = pos[v] - 1;
+        return order[i < 0 ? n - 1 : i];
+    }
+
+    /**
+     * Returns true if b lies on the path from a to c when following the
+     * tour forward (inclusive of both ends).
+     */
+    boolean between(int a, int b, int c) {
+        int pa = pos[a], pb = pos[b], pc = pos[c];
+        if (pa <= pc) {
+            return pa <= pb && pb <= pc;
+        }
+        return pb >= pa || pb <= pc;
+    }
+
+    /**
+     * Reverses the path that runs forward from vertex from to vertex to.
+     * The shorter of the path and its complement is reversed, which gives
+     * the same cyclic tour (possibly in the opposite orientation).
+     *
+     * @param from The first vertex of the path.
+     * @param to   The last vertex of the path.
+     */
+    void reverse(int from, int to) {
+        int i = pos[from];
+        int j = pos[to];
+        int len = j - i;
+        if (len < 0) {
+            len += n;
+        }
+        len++;
+        if (2 * len > n) {
+            // Reverse the complement instead
+            int tmp = i;
+            i = j + 1 == n ? 0 : j + 1;
+            j = tmp == 0 ? n - 1 : tmp - 1;
+            len = n - len;
+        }
+        for (int k = 0; k < len / 2; k++) {
+            int a = order[i];
+            int b = order[j];
+            order[i] = b;
+            pos[b] = i;
+            order[j] = a;
+            pos[a] = j;
+            i = i + 1 == n ? 0 : i + 1;
+            j = j == 0 ? n - 1 : j - 1;
+        }
+    }
+
+    /**
+     * Returns a copy of the tour order, for use with restore.
+     */
+    int[] snapshot() {
+        return order.clone();
+    }
+
+    /**
+     * Restores the tour to an order returned by snapshot.
+     */
+    void restore(int[] snapshot) {
+        System.arraycopy(snapshot, 0, order, 0, n);
+        for (int i = 0; i < n; i++) {
+            pos[order[i]] = i;
+        }
+    }
+
+    /**
+     * Returns the tour as a list of vertices.
+     */
+    List<Integer> toList() {
+        List<Integer> tour = new ArrayList<>(n);
+        for (int v : order) {
+            tour.add(v);
+        }
+        return tour;
+    }
+}
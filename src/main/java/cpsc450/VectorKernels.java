@@ -0,0 +1,126 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The Kernels written with the Vector API, at the preferred vector width
+ * of the machine. Each loop handles whole vectors and finishes the last
+ * few entries one at a time. This class links against the incubating
+ * module, so Kernels only loads it after checking the module is present.
+ */
+final class VectorKernels implements Kernels.Impl {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    public double minPlus(double[] a, int offset, double[] b, int length) {
+        int i = 0;
+        double min = Double.POSITIVE_INFINITY;
+        int bound = SPECIES.loopBound(length);
+        if (bound > 0) {
+            DoubleVector mins = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+            for (; i < bound; i += LANES) {
+                DoubleVector sum = DoubleVector.fromArray(SPECIES, a, offset + i)
+                        .add(DoubleVector.fromArray(SPECIES, b, i));
+                mins = mins.blend(sum, sum.compare(VectorOperators.LT, mins)); // NaN never compares less
+            }
+            min = mins.reduceLanes(VectorOperators.MIN);
+        }
+        for (; i < length; i++) {
+            double sum = a[offset + i] + b[i];
+            min = sum < min ? sum : min;
+        }
+        return min;
+    }
+
+    @Override
+    public double cycleCost(double[][] weights, int[] order, int n) {
+        // Each edge comes from a different row, so there is no contiguous
+        // load to vectorize. The edges are added one lane at a time instead,
+        // in the order sum adds the lanes of its vector, so the two agree.
+        int whole = n - n % LANES;
+        double cost = 0;
+        for (int l = 0; l < LANES; l++) {
+            double lane = 0;
+            for (int i = l; i < whole; i += LANES) {
+                int next = i + 1;
+                lane += weights[order[i]][order[next == n ? 0 : next]];
+            }
+            cost += lane;
+        }
+        for (int i = whole; i < n; i++) {
+            cost += weights[order[i]][order[i + 1 == n ? 0 : i + 1]];
+        }
+        return cost;
+    }
+
+    @Override
+    public double sum(double[] values, int n) {
+        DoubleVector sums = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i + LANES <= n; i += LANES) {
+            sums = sums.add(DoubleVector.fromArray(SPECIES, values, i));
+        }
+        // The lanes are added in order, so that the result does not depend
+        // on how reduceLanes associates
+        double sum = 0;
+        for (int l = 0; l < LANES; l++) {
+            sum += sums.lane(l);
+        }
+        for (; i < n; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int nearest(double[] row, int exclude, int[] best, double[] bestWeight) {
+        int k = best.length;
+        int size = 0;
+        int u = 0;
+        int bound = SPECIES.loopBound(row.length);
+        for (; u < bound; u += LANES) {
+            if (size == k && k > 0 && !DoubleVector.fromArray(SPECIES, row, u)
+                    .compare(VectorOperators.LT, bestWeight[k - 1]).anyTrue()) {
+                continue; // None of the lanes can enter the list
+            }
+            for (int lane = 0; lane < LANES; lane++) {
+                size = Kernels.offer(row, u + lane, exclude, best, bestWeight, size);
+            }
+        }
+        for (; u < row.length; u++) {
+            size = Kernels.offer(row, u, exclude, best, bestWeight, size);
+        }
+        return size;
+    }
+
+    @Override
+    public void euclideanRow(double[] xs, double[] ys, int x, double[] row) {
+        double px = xs[x];
+        double py = ys[x];
+        int y = 0;
+        int bound = SPECIES.loopBound(xs.length);
+        DoubleVector pxs = DoubleVector.broadcast(SPECIES, px);
+        DoubleVector pys = DoubleVector.broadcast(SPECIES, py);
+        for (; y < bound; y += LANES) {
+            DoubleVector dx = pxs.sub(DoubleVector.fromArray(SPECIES, xs, y));
+            DoubleVector dy = pys.sub(DoubleVector.fromArray(SPECIES, ys, y));
+            dx.mul(dx).add(dy.mul(dy)).lanewise(VectorOperators.SQRT).intoArray(row, y);
+        }
+        for (; y < xs.length; y++) {
+            double dx = px - xs[y];
+            double dy = py - ys[y];
+            row[y] = Math.sqrt(dx * dx + dy * dy);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class AdjMatrixTest {
+    @Test
+    void testBitsetsTrackAddsAndRemovesAcrossWords() {
+        int n = 150; // Three words per bitset row
+        Random random = new Random(3);
+        AdjMatrix g = new AdjMatrix(n);
+        AdjList expected = new AdjList(n);
+        for (int i = 0; i < 3000; i++) {
+            int x = random.nextInt(n);
+            int y = random.nextInt(n);
+            if (random.nextInt(4) == 0) {
+                g.removeEdge(x, y);
+                expected.removeEdge(x, y);
+            } else {
+                g.addEdge(x, y, 1 + random.nextInt(9));
+                expected.addEdge(x, y);
+            }
+        }
+
+        assertEquals(expected.edges(), g.edges());
+        NeighborCursor cursor = g.outCursor();
+        for (int x = 0; x < n; x++) {
+            assertEquals(expected.out(x), g.out(x));
+            assertEquals(expected.in(x), g.in(x));
+            assertEquals(expected.adj(x), g.adj(x));
+            assertEquals(expected.outDegree(x), g.outDegree(x));
+
+            int[] neighbors = g.getNeighbors(x);
+            int[] sorted = expected.out(x).stream().mapToInt(i -> i).sorted().toArray();
+            Arrays.sort(neighbors);
+            assertArrayEquals(sorted, neighbors);
+
+            Set<Integer> cursored = new HashSet<>();
+            for (cursor.reset(x); cursor.hasNext();) {
+                cursored.add(cursor.next());
+            }
+            assertEquals(expected.out(x), cursored);
+            for (int y = 0; y < n; y++) {
+                assertEquals(expected.hasEdge(x, y), g.hasEdge(x, y));
+            }
+        }
+    }
+
+    @Test
+    void testNonFiniteWeightsDoNotAddEdges() {
+        AdjMatrix g = new AdjMatrix(4);
+        g.addEdge(0, 1, Double.POSITIVE_INFINITY);
+        g.addEdge(0, 2, Double.NaN);
+        assertFalse(g.hasEdge(0, 1));
+        assertFalse(g.hasEdge(0, 2));
+        assertEquals(0, g.edges());
+        assertTrue(g.out(0).isEmpty());
+
+        // An infinite weight must not leave the bits of an existing edge behind
+        g.addEdge(0, 3, 2.0);
+        g.addEdge(0, 3, Double.POSITIVE_INFINITY);
+        assertTrue(g.hasEdge(0, 3));
+        assertEquals(2.0, g.weight(0, 3));
+        g.removeEdge(0, 3);
+        assertFalse(g.hasEdge(0, 3));
+        assertEquals(0, g.edges());
+        assertTrue(g.in(3).isEmpty());
+    }
+}
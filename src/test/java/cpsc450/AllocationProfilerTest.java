@@ -0,0 +1,55 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+public class AllocationProfilerTest {
+
+    static long[] sink; // Keeps the test allocations from being optimized away
+
+    @Test
+    void testPhasesAreChargedSeparately() {
+        Assumptions.assumeTrue(AllocationProfiler.isSupported());
+        AllocationProfiler profiler = new AllocationProfiler();
+        for (int i = 0; i < 3; i++) {
+            profiler.enter("big");
+            sink = new long[1 << 20]; // 8 MB
+            profiler.enter("small");
+            sink = new long[1 << 10]; // 8 KB
+        }
+        profiler.exit();
+
+        assertEquals(3, profiler.count("big"));
+        assertEquals(3, profiler.count("small"));
+        assertTrue(profiler.bytes("big") >= 3 * 8L * (1 << 20));
+        assertTrue(profiler.bytes("small") < 8L * (1 << 20));
+        assertEquals(0, profiler.bytes("missing"));
+    }
+
+    @Test
+    void testLinKernighanReportsItsPhases() {
+        Assumptions.assumeTrue(AllocationProfiler.isSupported());
+        AllocationProfiler profiler = new AllocationProfiler();
+        LinKernighan lk = new LinKernighan(InstanceGenerator.uniform(50, 1), 1);
+        lk.setProfiler(profiler);
+        lk.run();
+
+        long total = 0;
+        for (String phase : profiler.phases()) {
+            total += profiler.bytes(phase);
+        }
+        assertTrue(profiler.count("k-opt") >= 1 && profiler.count("2-opt") >= 1);
+        assertTrue(profiler.bytes("k-opt") > 0);
+        assertTrue(total <= AllocationProfiler.currentThreadAllocatedBytes());
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BenchmarkTest {
+
+    @Test
+    void testPercentilesUseNearestRank() {
+        long[] sorted = new long[100];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i + 1;
+        }
+        assertEquals(50, Benchmark.percentile(sorted, 50));
+        assertEquals(95, Benchmark.percentile(sorted, 95));
+        assertEquals(99, Benchmark.percentile(sorted, 99));
+        assertEquals(1, Benchmark.percentile(sorted, 0));
+        assertEquals(7, Benchmark.percentile(new long[] { 7 }, 99));
+    }
+
+    @Test
+    void testRunRecordsCostsGapsAndOutput(@TempDir Path dir) throws Exception {
+        Graph g = Benchmark.instance("dense", 9, 0);
+        double optimum = Benchmark.referenceCost(g);
+        Benchmark benchmark = new Benchmark(1, 4);
+        Benchmark.Result lk = benchmark.run("dense-9", g, optimum, "lk", Benchmark.SOLVERS.get("lk"), 1);
+        Benchmark.Result hk = benchmark.run("dense-9", g, optimum, "hk", Benchmark.SOLVERS.get("hk"), 2);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(lk.gap(i) >= -1e-9);
+            assertEquals(0, hk.gap(i), 1e-9);
+        }
+        assertTrue(lk.latencyMillis(50) <= lk.latencyMillis(99));
+
+        Path csv = dir.resolve("bench.csv");
+        Path json = dir.resolve("bench.json");
+        Benchmark.writeCsv(csv, List.of(lk, hk));
+        Benchmark.writeJson(json, List.of(lk, hk));
+        assertEquals(1 + 8, Files.readAllLines(csv).size());
+        String text = Files.readString(json);
+        assertTrue(text.contains("\"p99_ms\"") && text.contains("\"threads\": 2"));
+
+        Benchmark.writeConvergenceCharts(dir.resolve("bench").toString(), List.of(lk, hk));
+        assertTrue(Files.size(dir.resolve("bench-dense-9-cost.png")) > 0);
+        assertTrue(Files.size(dir.resolve("bench-dense-9-gap.png")) > 0);
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class CsrGraphTest {
+    @Test
+    void testBuilderMatchesAdjMatrix() {
+        int n = 30;
+        Random random = new Random(7);
+        AdjMatrix expected = new AdjMatrix(n);
+        CsrGraph.Builder builder = new CsrGraph.Builder(n);
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(n);
+            int y = random.nextInt(n);
+            double w = 1 + random.nextInt(50);
+            expected.addEdge(x, y, w); // Later duplicates overwrite earlier ones
+            builder.addEdge(x, y, w);
+        }
+        CsrGraph g = builder.build();
+
+        assertEquals(expected.edges(), g.edges());
+        for (int x = 0; x < n; x++) {
+            assertEquals(expected.out(x), g.out(x));
+            assertEquals(expected.in(x), g.in(x));
+            for (int y = 0; y < n; y++) {
+                assertEquals(expected.hasEdge(x, y), g.hasEdge(x, y));
+                assertEquals(expected.weight(x, y), g.weight(x, y));
+            }
+        }
+    }
+
+    @Test
+    void testBulkEdgesAndInvalidVertices() {
+        CsrGraph g = new CsrGraph.Builder(3)
+                .addEdges(new int[] { 0, 1, 2, 5 }, new int[] { 1, 2, 0, 0 }, null)
+                .build();
+
+        assertEquals(3, g.edges());
+        assertEquals(1.0, g.weight(0, 1));
+        assertEquals(Double.POSITIVE_INFINITY, g.weight(1, 0));
+        assertEquals(Set.of(1, 2), g.adj(0));
+        assertFalse(g.hasVertex(5));
+        assertTrue(g.out(5).isEmpty());
+    }
+
+    @Test
+    void testIsImmutable() {
+        CsrGraph g = new CsrGraph.Builder(2).addEdge(0, 1).build();
+        assertThrows(GraphException.class, () -> g.addEdge(1, 0));
+        assertThrows(GraphException.class, () -> g.removeEdge(0, 1));
+        assertEquals(1, g.edges());
+    }
+
+    @Test
+    void testNeighborIterationMatchesOut() {
+        int n = 25;
+        Random random = new Random(11);
+        Graph list = new AdjList(n);
+        AdjMatrix matrix = new AdjMatrix(n);
+        CsrGraph.Builder builder = new CsrGraph.Builder(n);
+        for (int i = 0; i < 120; i++) {
+            int x = random.nextInt(n);
+            int y = random.nextInt(n);
+            list.addEdge(x, y);
+            matrix.addEdge(x, y, 1 + i);
+            builder.addEdge(x, y, 1 + i);
+        }
+
+        double[] row = new double[n];
+        for (Graph g : List.of(list, matrix, builder.build())) {
+            NeighborCursor cursor = g.outCursor();
+            for (int x = 0; x < n; x++) {
+                Set<Integer> walked = new HashSet<>();
+                g.forEachOut(x, walked::add);
+                assertEquals(g.out(x), walked);
+
+                Set<Integer> cursored = new HashSet<>();
+                for (cursor.reset(x); cursor.hasNext();) {
+                    cursored.add(cursor.next());
+                }
+                assertEquals(g.out(x), cursored);
+                assertEquals(g.out(x).size(), g.outDegree(x));
+
+                g.copyWeightRow(x, row);
+                for (int y = 0; y < n; y++) {
+                    assertEquals(g.weight(x, y), row[y]);
+                }
+            }
+            assertFalse(cursor.reset(-1).hasNext());
+        }
+    }
+
+    @Test
+    void testDenseCsrGraphRunsLinKernighan() {
+        Graph g = FinalProject.createDenseCsrGraph(50);
+        assertEquals(50 * 49, g.edges());
+
+        LinKernighan lk = new LinKernighan(g);
+        lk.run();
+        List<Integer> tour = lk.getTour();
+        assertEquals(50, new HashSet<>(tour).size());
+    }
+}
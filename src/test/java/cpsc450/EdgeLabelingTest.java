@@ -0,0 +1,77 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class EdgeLabelingTest {
+    @Test
+    void testPrimitiveLabelsOnEveryGraph() {
+        Graph list = new AdjList(4);
+        AdjMatrix matrix = new AdjMatrix(4);
+        CsrGraph.Builder builder = new CsrGraph.Builder(4);
+        int[][] edges = { { 0, 1 }, { 1, 2 }, { 2, 3 }, { 3, 0 }, { 0, 2 } };
+        for (int[] edge : edges) {
+            list.addEdge(edge[0], edge[1]);
+            matrix.addEdge(edge[0], edge[1], 7);
+            builder.addEdge(edge[0], edge[1], 7);
+        }
+
+        for (Graph g : List.of(list, matrix, builder.build())) {
+            DoubleEdgeLabeling labels = new DoubleEdgeLabeling(g);
+            assertEquals(5, labels.edgeCount());
+            labels.addLabel(0, 2, 3.5);
+            labels.addLabel(3, 0, 1.25);
+
+            assertTrue(labels.hasLabel(0, 2));
+            assertFalse(labels.hasLabel(0, 1));
+            assertEquals(3.5, labels.getLabel(0, 2, -1));
+            assertEquals(-1, labels.getLabel(2, 0, -1));
+            assertThrows(GraphException.class, () -> labels.addLabel(2, 0, 1));
+
+            labels.removeLabel(3, 0);
+            assertFalse(labels.hasLabel(3, 0));
+        }
+    }
+
+    @Test
+    void testLabeledViewFeedsSolverWeights() {
+        Graph g = new AdjList(4);
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 4; y++) {
+                if (x != y) {
+                    g.addEdge(x, y);
+                }
+            }
+        }
+        IntEdgeLabeling labels = new IntEdgeLabeling(g); // The square 0-1-2-3 is the only cheap tour
+        int[][] weights = { { 0, 1, 1 }, { 1, 2, 1 }, { 2, 3, 1 }, { 3, 0, 1 }, { 0, 2, 10 }, { 1, 3, 10 } };
+        for (int[] w : weights) {
+            labels.addLabel(w[0], w[1], w[2]);
+            labels.addLabel(w[1], w[0], w[2]);
+        }
+
+        Graph labeled = labels.asGraph();
+        assertEquals(1, labeled.weight(0, 1));
+        assertEquals(2, labeled.weight(0, 0)); // Unlabeled pairs keep the graph's weight
+        double[] row = new double[4];
+        labeled.copyWeightRow(0, row);
+        assertEquals(10, row[2]);
+
+        LinKernighan lk = new LinKernighan(labeled);
+        lk.run();
+        assertEquals(4, lk.calculateTourCost(lk.getTour()), 1e-9);
+    }
+}
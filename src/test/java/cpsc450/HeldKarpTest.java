@@ -0,0 +1,235 @@
+/**
+ * CPSC 450, Final Project
+ * 
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HeldKarpTest {
+
+    /**
+     * Creates a complete digraph with random (asymmetric) integer weights.
+     */
+    static AdjMatrix createRandomGraph(int n, long seed) {
+        Random random = new Random(seed);
+        AdjMatrix g = new AdjMatrix(n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) {
+                    g.addEdge(i, j, 1 + random.nextInt(100));
+                }
+            }
+        }
+        return g;
+    }
+
+    /**
+     * Creates a complete graph with random symmetric integer weights.
+     */
+    static AdjMatrix createRandomSymmetricGraph(int n, long seed) {
+        Random random = new Random(seed);
+        AdjMatrix g = new AdjMatrix(n);
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double w = 1 + random.nextInt(50);
+                g.addEdge(i, j, w);
+                g.addEdge(j, i, w);
+            }
+        }
+        return g;
+    }
+
+    static double tourCost(Graph g, List<Integer> tour) {
+        double cost = 0;
+        for (int i = 0; i < tour.size(); i++) {
+            cost += g.weight(tour.get(i), tour.get((i + 1) % tour.size()));
+        }
+        return cost;
+    }
+
+    @Test
+    void testSingleVertex() {
+        HeldKarp hk = new HeldKarp(new AdjMatrix(1));
+        assertEquals(List.of(0), hk.run());
+        assertEquals(0, hk.getTourCost());
+    }
+
+    @Test
+    void testMatchesBruteForce() {
+        for (int n = 2; n <= 8; n++) {
+            AdjMatrix g = createRandomGraph(n, n);
+            HeldKarp hk = new HeldKarp(g);
+            List<Integer> tour = hk.run();
+
+            assertEquals(n, tour.size());
+            assertEquals(n, new HashSet<>(tour).size());
+            assertEquals(0, tour.get(0));
+            assertEquals(BruteForcePathCalculator.calculateOptimalPathWeight(g), hk.getTourCost(), 1e-9);
+            assertEquals(hk.getTourCost(), tourCost(g, tour), 1e-9);
+        }
+    }
+
+    @Test
+    void testParallelMatchesSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int n = 2; n <= 13; n++) {
+                AdjMatrix g = createRandomGraph(n, 100 + n);
+                HeldKarp sequential = new HeldKarp(g);
+                sequential.run();
+                HeldKarp parallel = new HeldKarp(g);
+                List<Integer> tour = parallel.runParallel(pool);
+
+                assertEquals(n, new HashSet<>(tour).size());
+                assertEquals(sequential.getTourCost(), parallel.getTourCost(), 1e-9);
+                assertEquals(parallel.getTourCost(), tourCost(g, tour), 1e-9);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testLayeredMatchesHeldKarp() {
+        for (int n = 2; n <= 13; n++) {
+            AdjMatrix g = createRandomGraph(n, 200 + n);
+            HeldKarp full = new HeldKarp(g);
+            full.run();
+            LayeredHeldKarp layered = new LayeredHeldKarp(g);
+            List<Integer> tour = layered.run();
+
+            assertEquals(n, new HashSet<>(tour).size());
+            assertEquals(full.getTourCost(), layered.getTourCost(), 1e-9);
+            assertEquals(layered.getTourCost(), tourCost(g, tour), 1e-9);
+        }
+    }
+
+    @Test
+    void testSubsetRankingWithLongMasks() {
+        Subsets subsets = new Subsets(40);
+        long mask = (1L << 5) - 1;
+        for (long r = 0; r < 2000; r++) {
+            assertEquals(r, subsets.rank(mask));
+            assertEquals(mask, subsets.unrank(r, 5));
+            mask = Subsets.next(mask);
+        }
+        long high = (1L << 39) | (1L << 33) | 1L;
+        assertEquals(high, subsets.unrank(subsets.rank(high), 3));
+    }
+
+    @Test
+    void testDiskBackedLayers(@TempDir Path dir) throws Exception {
+        AdjMatrix g = createRandomGraph(12, 300);
+        HeldKarp full = new HeldKarp(g);
+        full.run();
+
+        // Small windows so that layers span many of them and get evicted
+        LayeredHeldKarp disk = new LayeredHeldKarp(g, dir, 4096, 2);
+        List<Integer> tour = disk.run();
+
+        assertEquals(12, new HashSet<>(tour).size());
+        assertEquals(full.getTourCost(), disk.getTourCost(), 1e-9);
+        assertEquals(disk.getTourCost(), tourCost(g, tour), 1e-9);
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testSpilledLayersShareABoundedPool(@TempDir Path dir) {
+        Layer.Pool pool = new Layer.Pool(64, 3); // 8 doubles per window
+        Layer costs = new Layer.Spilled(dir.resolve("costs.bin"), 100, true, pool);
+        Layer bytes = new Layer.Spilled(dir.resolve("bytes.bin"), 500, false, pool);
+        Random random = new Random(5);
+        double[] expected = new double[100];
+        for (int step = 0; step < 2000; step++) {
+            int i = random.nextInt(100);
+            expected[i] = random.nextDouble();
+            costs.setDouble(i, expected[i]);
+            bytes.setByte(5 * i, (byte) i);
+        }
+        double[] run = new double[20];
+        costs.getDoubles(30, run, 20); // Spans three windows
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected[i], costs.getDouble(i));
+            assertEquals(expected[i] == 0 ? 0 : (byte) i, bytes.getByte(5 * i));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals(expected[30 + i], run[i]);
+        }
+        assertEquals(3, pool.allocated());
+        costs.close();
+        bytes.close();
+    }
+
+    @Test
+    void testOneTreeBoundIsValid() {
+        for (int n = 3; n <= 10; n++) {
+            AdjMatrix g = createRandomGraph(n, 400 + n);
+            HeldKarp hk = new HeldKarp(g);
+            hk.run();
+            double bound = new OneTreeBound(g).compute(hk.getTourCost());
+            assertTrue(bound > 0);
+            assertTrue(bound <= hk.getTourCost() + 1e-9);
+        }
+    }
+
+    @Test
+    void testBranchAndBoundMatchesHeldKarp() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int n = 4; n <= 14; n++) {
+                AdjMatrix g = createRandomSymmetricGraph(n, 500 + n);
+                HeldKarp hk = new HeldKarp(g);
+                hk.run();
+                BranchAndBound bb = new BranchAndBound(g);
+                List<Integer> tour = bb.run(pool);
+
+                assertEquals(n, new HashSet<>(tour).size());
+                assertEquals(hk.getTourCost(), bb.getTourCost(), 1e-9);
+                assertEquals(bb.getTourCost(), tourCost(g, tour), 1e-9);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testBranchAndBoundRejectsAsymmetricWeights() {
+        assertThrows(GraphException.class, () -> new BranchAndBound(createRandomGraph(5, 1)));
+    }
+
+    @Test
+    void testOptimizePathKeepsEndpoints() {
+        AdjMatrix g = createRandomGraph(9, 7);
+        HeldKarp hk = new HeldKarp(g);
+        List<Integer> path = List.of(3, 0, 8, 1, 6, 2, 5);
+        List<Integer> best = hk.optimizePath(path);
+
+        assertEquals(3, best.get(0));
+        assertEquals(5, best.get(best.size() - 1));
+        assertEquals(new HashSet<>(path), new HashSet<>(best));
+        double original = 0, optimized = 0;
+        for (int k = 0; k + 1 < path.size(); k++) {
+            original += g.weight(path.get(k), path.get(k + 1));
+            optimized += g.weight(best.get(k), best.get(k + 1));
+        }
+        assertTrue(optimized <= original);
+    }
+}
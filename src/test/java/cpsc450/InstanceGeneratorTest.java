@@ -0,0 +1,57 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class InstanceGeneratorTest {
+
+    @Test
+    void testSameSeedGivesSameInstance() {
+        for (String kind : new String[] { "uniform", "clustered", "grid", "road" }) {
+            double[][] a = InstanceGenerator.generate(kind, 30, 7).rows();
+            double[][] b = InstanceGenerator.generate(kind, 30, 7).rows();
+            double[][] c = InstanceGenerator.generate(kind, 30, 8).rows();
+            for (int x = 0; x < 30; x++) {
+                assertArrayEquals(a[x], b[x]);
+            }
+            assertFalse(Arrays.deepEquals(a, c));
+        }
+    }
+
+    @Test
+    void testInstancesAreCompleteAndSymmetric() {
+        for (String kind : new String[] { "uniform", "clustered", "grid", "road" }) {
+            DistanceMatrix g = InstanceGenerator.generate(kind, 40, 11);
+            assertEquals(40 * 39, g.edges());
+            for (int x = 0; x < 40; x++) {
+                for (int y = 0; y < 40; y++) {
+                    assertEquals(g.weight(x, y), g.weight(y, x), 1e-9);
+                }
+            }
+        }
+
+        // Road distances follow the network, so they are never shorter than the straight line
+        double[][] points = InstanceGenerator.uniformPoints(40, new Random(11).nextLong());
+        DistanceMatrix road = InstanceGenerator.roadLike(40, 11);
+        for (int x = 0; x < 40; x++) {
+            for (int y = x + 1; y < 40; y++) {
+                double straight = Math.hypot(points[x][0] - points[y][0], points[x][1] - points[y][1]);
+                assertTrue(road.weight(x, y) >= straight - 1e-9);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+public class KernelsTest {
+
+    /**
+     * Both implementations, so that the plain loops stay tested while the
+     * build runs with the vector module.
+     */
+    private static final List<Kernels.Impl> IMPLEMENTATIONS = List.of(new Kernels.Scalar(), new VectorKernels());
+
+    @Test
+    void testVectorKernelsAreChosenWithTheModule() {
+        assertEquals("vector", Kernels.implementation());
+    }
+
+    @Test
+    void testNearestMatchesSortedOrder() {
+        Random random = new Random(3);
+        for (int n : new int[] { 1, 3, 4, 7, 50, 203 }) {
+            double[] row = new double[n];
+            for (int u = 0; u < n; u++) {
+                row[u] = random.nextInt(20); // Plenty of ties
+            }
+            row[n / 2] = Double.POSITIVE_INFINITY;
+            int k = Math.min(10, n);
+            int[] expected = IntStream.range(1, n).boxed()
+                    .filter(u -> row[u] != Double.POSITIVE_INFINITY)
+                    .sorted(Comparator.comparingDouble((Integer u) -> row[u]).thenComparing(u -> u))
+                    .limit(k).mapToInt(Integer::intValue).toArray();
+            for (Kernels.Impl kernels : IMPLEMENTATIONS) {
+                int[] best = new int[k];
+                int size = kernels.nearest(row, 0, best, new double[k]);
+                assertArrayEquals(expected, Arrays.copyOf(best, size));
+            }
+        }
+    }
+
+    @Test
+    void testRowKernelsMatchPlainLoops() {
+        Random random = new Random(5);
+        for (Kernels.Impl kernels : IMPLEMENTATIONS) {
+            for (int length : new int[] { 0, 3, 13, 64 }) {
+                double[] a = random.doubles(length + 7).toArray();
+                double[] b = random.doubles(length).toArray();
+                double min = Double.POSITIVE_INFINITY;
+                for (int i = 0; i < length; i++) {
+                    min = Math.min(min, a[7 + i] + b[i]);
+                }
+                assertEquals(min, kernels.minPlus(a, 7, b, length));
+            }
+            double[] withNaN = { 4, Double.NaN, 2, 9, 1, 8, Double.NaN, 3, 5 };
+            assertEquals(1, kernels.minPlus(withNaN, 0, new double[9], 9)); // NaN sums are skipped
+
+            double[] xs = random.doubles(11, 0, 100).toArray();
+            double[] ys = random.doubles(11, 0, 100).toArray();
+            double[] row = new double[11];
+            kernels.euclideanRow(xs, ys, 4, row);
+            for (int y = 0; y < 11; y++) {
+                assertEquals(Math.hypot(xs[4] - xs[y], ys[4] - ys[y]), row[y], 1e-9);
+            }
+
+            double[][] weights = { { 0, 1, 2 }, { 3, 0, 4 }, { 5, 6, 0 } };
+            assertEquals(1 + 4 + 5, kernels.cycleCost(weights, new int[] { 0, 1, 2 }, 3));
+            assertEquals(2 + 6 + 3, kernels.cycleCost(weights, new int[] { 0, 2, 1 }, 3));
+        }
+    }
+
+    @Test
+    void testCycleCostMatchesSumOfEdgeWeights() {
+        int n = 37;
+        Random random = new Random(7);
+        double[][] weights = new double[n][];
+        for (int u = 0; u < n; u++) {
+            weights[u] = random.doubles(n, 0, 1000).toArray();
+        }
+        int[] order = IntStream.range(0, n).map(i -> (i * 10) % n).toArray();
+        double[] edges = new double[n];
+        double plain = 0;
+        for (int i = 0; i < n; i++) {
+            edges[i] = weights[order[i]][order[(i + 1) % n]];
+            plain += edges[i];
+        }
+        for (Kernels.Impl kernels : IMPLEMENTATIONS) {
+            // Exactly equal, however the lanes split the sum
+            assertEquals(kernels.sum(edges, n), kernels.cycleCost(weights, order, n));
+            assertEquals(plain, kernels.sum(edges, n), 1e-9);
+        }
+    }
+
+    @Test
+    void testTourCostKernelsDoNotAllocate() {
+        Assumptions.assumeTrue(AllocationProfiler.isSupported());
+        int n = 61;
+        Random random = new Random(11);
+        double[][] weights = new double[n][];
+        for (int u = 0; u < n; u++) {
+            weights[u] = random.doubles(n, 0, 1000).toArray();
+        }
+        int[] order = IntStream.range(0, n).toArray();
+        double[] edges = weights[0];
+        for (Kernels.Impl kernels : IMPLEMENTATIONS) {
+            // Measured once the JIT has compiled both; compilation finishes in
+            // the background, so a few rounds may run before it is in place
+            double total = 0;
+            long allocated = -1;
+            for (int round = 0; round < 50 && allocated != 0; round++) {
+                for (int i = 0; i < 20_000; i++) {
+                    total += kernels.cycleCost(weights, order, n) + kernels.sum(edges, n);
+                }
+                long before = AllocationProfiler.currentThreadAllocatedBytes();
+                for (int i = 0; i < 1_000; i++) {
+                    total += kernels.cycleCost(weights, order, n) + kernels.sum(edges, n);
+                }
+                allocated = AllocationProfiler.currentThreadAllocatedBytes() - before;
+            }
+            assertEquals(0, allocated, kernels.getClass().getSimpleName() + " allocated " + allocated + " bytes");
+            assertTrue(total > 0);
+        }
+    }
+}
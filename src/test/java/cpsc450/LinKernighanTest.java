@@ -7,9 +7,13 @@
 
 package cpsc450;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -295,5 +299,285 @@ public class LinKernighanTest {
         assertTrue(Math.abs(lkPathWeight - optimalPathWeight) <= tolerance);
     }
 
-    
-}
\ No newline at end of file
+    /**
+     * Creates a complete graph over n points evenly spaced on a circle,
+     * with Euclidean edge weights. The optimal tour visits the points in
+     * circle order.
+     */
+    static AdjMatrix createCircleGraph(int n) {
+        AdjMatrix g = new AdjMatrix(n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) {
+                    g.addEdge(i, j, circleDistance(i, j, n));
+                }
+            }
+        }
+        return g;
+    }
+
+    static double circleDistance(double i, double j, int n) {
+        double a = 2 * Math.PI * i / n;
+        double b = 2 * Math.PI * j / n;
+        return Math.hypot(Math.cos(a) - Math.cos(b), Math.sin(a) - Math.sin(b));
+    }
+
+    @Test
+    void testRunFindsCircleTour() {
+        int n = 30;
+        LinKernighan lk = new LinKernighan(createCircleGraph(n));
+        lk.run();
+        double optimal = n * circleDistance(0, 1, n);
+        assertEquals(optimal, lk.calculateTourCost(lk.getTour()), 1e-9);
+    }
+
+    @Test
+    void testInsertVertexReoptimizes() {
+        int n = 20;
+        LinKernighan lk = new LinKernighan(createCircleGraph(n));
+        lk.run();
+
+        // Place the new vertex on the circle halfway between 4 and 5
+        double[] out = new double[n];
+        double[] in = new double[n];
+        for (int i = 0; i < n; i++) {
+            out[i] = circleDistance(4.5, i, n);
+            in[i] = out[i];
+        }
+        int v = lk.insertVertex(out, in);
+        lk.reoptimize();
+
+        List<Integer> tour = lk.getTour();
+        assertEquals(n, v);
+        assertEquals(n + 1, tour.size());
+        assertEquals(n + 1, new HashSet<>(tour).size());
+        double expected = (n - 1) * circleDistance(0, 1, n) + 2 * circleDistance(4, 4.5, n);
+        assertEquals(expected, lk.calculateTourCost(tour), 1e-9);
+    }
+
+    @Test
+    void testUpdateWeightReoptimizes() {
+        int n = 20;
+        LinKernighan lk = new LinKernighan(createCircleGraph(n));
+        lk.run();
+        List<Integer> before = List.copyOf(lk.getTour());
+
+        // Make one of the tour edges very expensive in both directions
+        int u = before.get(0);
+        int v = before.get(1);
+        lk.updateWeight(u, v, 100);
+        lk.updateWeight(v, u, 100);
+        double stale = lk.calculateTourCost(before);
+
+        assertTrue(lk.reoptimize());
+        List<Integer> after = lk.getTour();
+        assertEquals(n, new HashSet<>(after).size());
+        assertTrue(lk.calculateTourCost(after) < stale);
+    }
+
+    @Test
+    void testGapToleranceStopsEarly() {
+        int n = 30;
+        LinKernighan lk = new LinKernighan(createCircleGraph(n));
+        lk.setGapTolerance(0);
+        lk.run();
+
+        double optimal = n * circleDistance(0, 1, n);
+        assertEquals(1, lk.getRestartsCompleted());
+        assertEquals(optimal, lk.getLowerBound(), 1e-9);
+        assertEquals(optimal, lk.calculateTourCost(lk.getTour()), 1e-9);
+    }
+
+    @Test
+    void testPolishWithWindowsImprovesPath() {
+        // Points on a line visited in a scrambled order; windows can only help
+        int n = 40;
+        AdjMatrix g = new AdjMatrix(n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) {
+                    g.addEdge(i, j, Math.abs(i - j));
+                }
+            }
+        }
+        LinKernighan lk = new LinKernighan(g);
+        double before = lk.calculateTourCost(lk.getTour());
+        boolean improved = lk.polishWithWindows(LinKernighan.MAX_WINDOW);
+        List<Integer> tour = lk.getTour();
+
+        assertEquals(n, new HashSet<>(tour).size());
+        assertTrue(improved);
+        assertTrue(lk.calculateTourCost(tour) < before);
+    }
+
+    @Test
+    void testSameSeedGivesSameRun() {
+        DistanceMatrix g = InstanceGenerator.uniform(60, 3);
+        LinKernighan first = new LinKernighan(g, 42);
+        LinKernighan second = new LinKernighan(g, 42);
+        assertEquals(first.getTour(), second.getTour());
+
+        first.run();
+        second.run();
+        assertEquals(first.getTour(), second.getTour());
+        assertEquals(first.getKOptAttempts(), second.getKOptAttempts());
+        assertEquals(first.getMovesApplied(), second.getMovesApplied());
+        assertTrue(first.getKOptAttempts() > 0);
+
+        LinKernighan other = new LinKernighan(g, 43);
+        assertNotEquals(new LinKernighan(g, 42).getTour(), other.getTour());
+    }
+
+    @Test
+    void testTraceRecordsEachNewBestCost() {
+        LinKernighan lk = new LinKernighan(InstanceGenerator.clustered(80, 5), 9);
+        lk.run();
+        ConvergenceTrace trace = lk.getTrace();
+
+        assertTrue(trace.size() > 1);
+        for (int i = 1; i < trace.size(); i++) {
+            assertTrue(trace.cost(i) < trace.cost(i - 1));
+            assertTrue(trace.timeMillis(i) >= trace.timeMillis(i - 1));
+        }
+        assertEquals(lk.calculateTourCost(lk.getTour()), trace.best(), 1e-9);
+        assertEquals(trace.cost(0), trace.costAt(trace.timeMillis(0)));
+    }
+
+    @Test
+    void testDeeperMovesGiveShorterTours() {
+        double twoOpt = 0;
+        double fiveOpt = 0;
+        for (int seed = 0; seed < 5; seed++) {
+            DistanceMatrix g = InstanceGenerator.uniform(100, seed);
+            for (int depth : new int[] { 2, 5 }) {
+                LinKernighan lk = new LinKernighan(g, seed);
+                lk.setMoveDepth(depth);
+                lk.run();
+                List<Integer> tour = lk.getTour();
+                assertEquals(100, new HashSet<>(tour).size());
+                if (depth == 2) {
+                    twoOpt += lk.calculateTourCost(tour);
+                } else {
+                    fiveOpt += lk.calculateTourCost(tour);
+                }
+            }
+        }
+        assertTrue(fiveOpt < twoOpt);
+        assertThrows(IllegalArgumentException.class, () -> new LinKernighan(InstanceGenerator.uniform(5, 0)).setMoveDepth(6));
+    }
+
+    @Test
+    void testSegmentReversalsGiveEveryArrangement() {
+        for (int m = 0; m < LinKernighan.MAX_MOVE_DEPTH; m++) {
+            int total = (int) Math.pow(2 * m, m);
+            for (int code = 0; code < total; code++) {
+                // Each position holds segment * 2, plus 1 if it is reversed
+                int[] target = new int[m];
+                boolean[] used = new boolean[m];
+                boolean valid = true;
+                for (int i = 0, rest = code; i < m; i++, rest /= 2 * m) {
+                    target[i] = rest % (2 * m);
+                    valid &= !used[target[i] / 2];
+                    used[target[i] / 2] = true;
+                }
+                if (!valid) {
+                    continue;
+                }
+                int[] reversals = LinKernighan.segmentReversals(target, m);
+                assertTrue(reversals.length / 2 <= m + 1);
+                int[] arrangement = new int[m];
+                for (int i = 0; i < m; i++) {
+                    arrangement[i] = 2 * i;
+                }
+                for (int r = 0; r < reversals.length; r += 2) {
+                    for (int i = reversals[r], j = reversals[r + 1]; i <= j; i++, j--) {
+                        int a = arrangement[i] ^ 1;
+                        arrangement[i] = arrangement[j] ^ 1;
+                        arrangement[j] = a;
+                    }
+                }
+                assertArrayEquals(target, arrangement);
+            }
+        }
+    }
+
+    @Test
+    void testDoubleBridgeMovesShortenTours() {
+        double without = 0;
+        double with = 0;
+        for (int seed = 0; seed < 5; seed++) {
+            DistanceMatrix g = InstanceGenerator.clustered(120, seed);
+            for (boolean doubleBridges : new boolean[] { false, true }) {
+                LinKernighan lk = new LinKernighan(g, seed);
+                lk.setDoubleBridgeMoves(doubleBridges);
+                lk.run();
+                List<Integer> tour = lk.getTour();
+                assertEquals(120, new HashSet<>(tour).size());
+                if (doubleBridges) {
+                    with += lk.calculateTourCost(tour);
+                } else {
+                    without += lk.calculateTourCost(tour);
+                }
+            }
+        }
+        assertTrue(with < without);
+    }
+
+    @Test
+    void testReoptimizeWorkDoesNotGrowWithSize() {
+        long[] attempts = new long[2];
+        int[] sizes = { 200, 800 };
+        for (int k = 0; k < sizes.length; k++) {
+            LinKernighan lk = new LinKernighan(InstanceGenerator.uniform(sizes[k], 8), 8);
+            lk.run();
+            List<Integer> tour = lk.getTour();
+            int u = tour.get(0);
+            int v = tour.get(1);
+            lk.updateWeight(u, v, 10 * lk.calculateTourCost(tour));
+            lk.updateWeight(v, u, 10 * lk.calculateTourCost(tour));
+
+            long before = lk.getDoubleBridgeAttempts();
+            assertTrue(lk.reoptimize());
+            attempts[k] = lk.getDoubleBridgeAttempts() - before;
+            assertEquals(sizes[k], new HashSet<>(lk.getTour()).size());
+        }
+        // Only the region around the changed edge is searched, at any size
+        assertTrue(attempts[0] > 0);
+        assertTrue(attempts[1] < 100, "attempts at n=800: " + attempts[1]);
+        assertTrue(attempts[1] <= 3 * attempts[0] + 20, attempts[0] + " vs " + attempts[1]);
+    }
+
+    @Test
+    void testBackboneModeFixesSharedEdges() {
+        DistanceMatrix g = InstanceGenerator.uniform(120, 4);
+        LinKernighan free = new LinKernighan(g, 4);
+        free.run();
+        LinKernighan backbone = new LinKernighan(g, 4);
+        backbone.setBackboneRestarts(3);
+        backbone.run();
+
+        assertEquals(0, free.getBackboneSize());
+        assertTrue(backbone.getBackboneSize() > 0 && backbone.getBackboneSize() < 120);
+        assertEquals(120, new HashSet<>(backbone.getTour()).size());
+        assertTrue(backbone.calculateTourCost(backbone.getTour()) < 1.05 * free.calculateTourCost(free.getTour()));
+        assertThrows(IllegalArgumentException.class, () -> backbone.setBackboneRestarts(5));
+    }
+
+    @Test
+    void testMultilevelRefinesCoarsestTour() {
+        DistanceMatrix g = InstanceGenerator.clustered(300, 6);
+        LinKernighan restarts = new LinKernighan(g, 6);
+        restarts.run();
+        LinKernighan multilevel = new LinKernighan(g, 6);
+        multilevel.runMultilevel();
+
+        List<Integer> tour = multilevel.getTour();
+        assertEquals(300, new HashSet<>(tour).size());
+        // Matching goes past the candidate lists, so coarsening always reaches the coarsest size
+        assertEquals(300 - LinKernighan.COARSEST_FRAGMENTS, multilevel.getBackboneSize());
+        assertTrue(multilevel.calculateTourCost(tour) < 1.05 * restarts.calculateTourCost(restarts.getTour()));
+        ConvergenceTrace trace = multilevel.getTrace();
+        assertTrue(trace.size() > 1);
+        assertEquals(multilevel.calculateTourCost(tour), trace.best(), 1e-9);
+    }
+}
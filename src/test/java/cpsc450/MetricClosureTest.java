@@ -0,0 +1,210 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class MetricClosureTest {
+
+    /**
+     * Builds a random sparse weighted digraph: a ring plus a few chords.
+     */
+    static AdjMatrix createSparseWeightedGraph(int n, long seed) {
+        Random random = new Random(seed);
+        AdjMatrix g = new AdjMatrix(n);
+        for (int i = 0; i < n; i++) {
+            g.addEdge(i, (i + 1) % n, 1 + random.nextInt(20));
+            g.addEdge((i + 1) % n, i, 1 + random.nextInt(20));
+        }
+        for (int i = 0; i < n; i++) {
+            g.addEdge(random.nextInt(n), random.nextInt(n), 1 + random.nextInt(40));
+        }
+        return g;
+    }
+
+    /**
+     * Computes all-pairs distances with Floyd-Warshall for comparison.
+     */
+    static double[][] floydWarshall(Graph g) {
+        int n = g.vertices();
+        double[][] d = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                d[i][j] = i == j ? 0 : g.weight(i, j);
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    d[i][j] = Math.min(d[i][j], d[i][k] + d[k][j]);
+                }
+            }
+        }
+        return d;
+    }
+
+    @Test
+    void testDistancesMatchFloydWarshall() {
+        AdjMatrix g = createSparseWeightedGraph(60, 5);
+        double[][] expected = floydWarshall(g);
+        MetricClosure closure = new MetricClosure(g);
+        for (int x = 0; x < 60; x++) {
+            for (int y = 0; y < 60; y++) {
+                assertEquals(x == y ? Double.POSITIVE_INFINITY : expected[x][y], closure.weight(x, y), 1e-9);
+            }
+        }
+        assertEquals(60 * 59, closure.edges());
+        assertTrue(closure.in(3).contains(40));
+    }
+
+    @Test
+    void testCacheStaysWithinBudget() {
+        int n = 200;
+        long rowBytes = n * Double.BYTES + 64;
+        MetricClosure closure = new MetricClosure(createSparseWeightedGraph(n, 9), 10 * rowBytes);
+        for (int x = 0; x < n; x++) {
+            closure.weight(x, 0);
+            assertTrue(closure.getCachedBytes() <= 10 * rowBytes);
+        }
+        assertEquals(n, closure.getCacheMisses());
+
+        // A recently used row stays cached
+        closure.weight(n - 1, 0);
+        assertEquals(1, closure.getCacheHits());
+    }
+
+    @Test
+    void testConcurrentReadsAndPrefetch() {
+        AdjMatrix g = createSparseWeightedGraph(120, 13);
+        double[][] expected = floydWarshall(g);
+        MetricClosure closure = new MetricClosure(g, 40 * (120 * Double.BYTES + 64));
+        closure.setPrefetchCandidates(5);
+
+        IntStream.range(0, 20_000).parallel().forEach(i -> {
+            int x = (i * 31) % 120;
+            int y = (i * 17) % 120;
+            if (x != y) {
+                assertEquals(expected[x][y], closure.weight(x, y), 1e-9);
+            }
+        });
+        assertFalse(closure.hasEdge(7, 7));
+    }
+
+    @Test
+    void testLinKernighanOnClosureOfSparseGraph() {
+        Graph closure = new MetricClosure(createSparseWeightedGraph(40, 21));
+        LinKernighan lk = new LinKernighan(closure);
+        lk.run();
+        assertEquals(40, new HashSet<>(lk.getTour()).size());
+        assertTrue(Double.isFinite(lk.calculateTourCost(lk.getTour())));
+    }
+
+    @Test
+    void testLinKernighanReadsClosureRowsWithinBudget() {
+        int n = 200;
+        long rowBytes = n * Double.BYTES + 64;
+        AdjMatrix g = createSparseWeightedGraph(n, 27);
+        MetricClosure closure = new MetricClosure(g, 20 * rowBytes);
+        LinKernighan lk = new LinKernighan(closure, 4);
+        lk.run();
+
+        // Never more than the budget of rows is held, and rows were recomputed
+        assertTrue(closure.getCachedBytes() <= 20 * rowBytes);
+        assertTrue(closure.getCacheMisses() > n);
+
+        // Reading rows on demand gives the same search as the full matrix
+        LinKernighan dense = new LinKernighan(new AllPairsShortestPaths(g).run(), 4);
+        dense.run();
+        assertEquals(dense.getTour(), lk.getTour());
+        assertEquals(n, new HashSet<>(lk.getTour()).size());
+
+        // Coarsening reads the same rows and builds no table of its own
+        lk.runMultilevel();
+        assertTrue(closure.getCachedBytes() <= 20 * rowBytes);
+        assertEquals(n, new HashSet<>(lk.getTour()).size());
+        assertEquals(n - LinKernighan.COARSEST_FRAGMENTS, lk.getBackboneSize());
+    }
+
+    @Test
+    void testGapToleranceReadsClosureRowsWithinBudget() {
+        int n = 150;
+        long rowBytes = n * Double.BYTES + 64;
+        AdjMatrix g = createSparseWeightedGraph(n, 31);
+        MetricClosure closure = new MetricClosure(g, 10 * rowBytes);
+        LinKernighan lk = new LinKernighan(closure, 4);
+        lk.setGapTolerance(0.5);
+        lk.run();
+
+        // The 1-trees read the rows through the cache instead of copying them
+        assertTrue(closure.getCachedBytes() <= 10 * rowBytes);
+        assertTrue(lk.getLowerBound() <= lk.calculateTourCost(lk.getTour()) + 1e-9);
+
+        // Reading the directed rows on demand gives the bound of the full matrix
+        double cost = lk.calculateTourCost(lk.getTour());
+        double onDemand = new OneTreeBound(closure).compute(cost);
+        assertTrue(closure.getCachedBytes() <= 10 * rowBytes);
+        assertEquals(new OneTreeBound(new AllPairsShortestPaths(g).run()).compute(cost), onDemand, 1e-9);
+    }
+
+    @Test
+    void testAllPairsShortestPathsMatchesFloydWarshall() {
+        // Dense enough for blocked Floyd-Warshall, with several tiles per row
+        int n = 150;
+        Random random = new Random(17);
+        AdjMatrix dense = new AdjMatrix(n);
+        for (int x = 0; x < n; x++) {
+            for (int y = 0; y < n; y++) {
+                if (x != y && random.nextInt(3) == 0) {
+                    dense.addEdge(x, y, 1 + random.nextInt(100));
+                }
+            }
+        }
+        AdjMatrix sparse = createSparseWeightedGraph(n, 19);
+
+        for (AdjMatrix g : new AdjMatrix[] { dense, sparse }) {
+            double[][] expected = floydWarshall(g);
+            AllPairsShortestPaths apsp = new AllPairsShortestPaths(g);
+            DistanceMatrix blocked = apsp.runFloydWarshall(ForkJoinPool.commonPool());
+            DistanceMatrix dijkstra = apsp.runDijkstra(ForkJoinPool.commonPool());
+            DistanceMatrix chosen = apsp.run();
+            for (int x = 0; x < n; x++) {
+                for (int y = 0; y < n; y++) {
+                    double d = x == y ? Double.POSITIVE_INFINITY : expected[x][y];
+                    assertEquals(d, blocked.weight(x, y), 1e-9);
+                    assertEquals(d, dijkstra.weight(x, y), 1e-9);
+                    assertEquals(d, chosen.weight(x, y), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSolversShareTheDistanceMatrix() {
+        DistanceMatrix distances = new AllPairsShortestPaths(createSparseWeightedGraph(12, 23)).run();
+        double before = distances.weight(0, 1);
+
+        HeldKarp hk = new HeldKarp(distances);
+        hk.run();
+        LinKernighan lk = new LinKernighan(distances);
+        lk.run();
+        assertTrue(lk.calculateTourCost(lk.getTour()) >= hk.getTourCost() - 1e-9);
+
+        // Updating the solver copies the rows instead of writing into the matrix
+        lk.updateWeight(0, 1, before + 100);
+        assertEquals(before, distances.weight(0, 1));
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ProblemReductionTest {
+
+    /**
+     * A ring of 12 vertices where only the hubs {0, 1, 4, 5, 8, 9} have
+     * chords between them, so the other vertices have degree 2.
+     */
+    static AdjMatrix createHubRing(long seed) {
+        Random random = new Random(seed);
+        int n = 12;
+        int[] hubs = { 0, 1, 4, 5, 8, 9 };
+        AdjMatrix g = new AdjMatrix(n);
+        for (int i = 0; i < n; i++) {
+            double w = 1 + random.nextInt(20);
+            g.addEdge(i, (i + 1) % n, w);
+            g.addEdge((i + 1) % n, i, w);
+        }
+        for (int a : hubs) {
+            for (int b : hubs) {
+                if (a < b && !g.hasEdge(a, b)) {
+                    double w = 1 + random.nextInt(20);
+                    g.addEdge(a, b, w);
+                    g.addEdge(b, a, w);
+                }
+            }
+        }
+        return g;
+    }
+
+    @Test
+    void testReducedOptimumExpandsToOptimum() {
+        for (long seed = 0; seed < 10; seed++) {
+            AdjMatrix g = createHubRing(seed);
+            ProblemReduction reduction = new ProblemReduction(g);
+            assertEquals(9, reduction.getForcedEdgeCount());
+            assertEquals(6, reduction.getReducedGraph().vertices()); // Three paths, two ends each
+
+            HeldKarp exact = new HeldKarp(g);
+            exact.run();
+            List<Integer> expanded = reduction.expand(new HeldKarp(reduction.getReducedGraph()).run());
+            assertEquals(12, new HashSet<>(expanded).size());
+            assertEquals(exact.getTourCost(), HeldKarpTest.tourCost(g, expanded), 1e-9);
+
+            List<Integer> solved = reduction.run();
+            assertEquals(12, new HashSet<>(solved).size());
+            assertTrue(HeldKarpTest.tourCost(g, solved) >= exact.getTourCost() - 1e-9);
+        }
+    }
+
+    @Test
+    void testCycleIsSolvedByReduction() {
+        AdjMatrix g = new AdjMatrix(8);
+        for (int i = 0; i < 8; i++) {
+            g.addEdge(i, (i + 3) % 8, 1);
+        }
+        ProblemReduction reduction = new ProblemReduction(g);
+        assertEquals(1, reduction.getReducedGraph().vertices());
+        List<Integer> tour = reduction.run();
+        assertEquals(8, HeldKarpTest.tourCost(g, tour));
+    }
+
+    @Test
+    void testSubtourOfForcedEdgesIsRejected() {
+        AdjMatrix g = new AdjMatrix(6); // Two separate triangles
+        for (int i = 0; i < 3; i++) {
+            g.addEdge(i, (i + 1) % 3, 1);
+            g.addEdge(3 + i, 3 + (i + 1) % 3, 1);
+        }
+        assertThrows(GraphException.class, () -> new ProblemReduction(g));
+    }
+}
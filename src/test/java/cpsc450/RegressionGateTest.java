@@ -0,0 +1,86 @@
+/**
+ * CPSC 450, Final Project
+ *
+ * NAME: Isabelle May
+ * DATE: Fall 2024
+ */
+
+package cpsc450;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RegressionGateTest {
+
+    /**
+     * Builds a result with latencies base, base + step, ... in ms and a fixed cost.
+     */
+    static Benchmark.Result result(String solver, double base, double step, double cost) {
+        Benchmark.Result r = new Benchmark.Result("uniform-50", solver, 50, 1, 100, 10);
+        for (int i = 0; i < 10; i++) {
+            r.latencyNanos[i] = (long) ((base + i * step) * 1e6);
+            r.costs[i] = cost;
+        }
+        return r;
+    }
+
+    @Test
+    void testMannWhitney() {
+        double[] low = { 1, 2, 3, 4, 5, 6, 7, 8 };
+        double[] high = { 11, 12, 13, 14, 15, 16, 17, 18 };
+        assertTrue(RegressionGate.mannWhitneyGreater(high, low) < 0.001);
+        assertTrue(RegressionGate.mannWhitneyGreater(low, high) > 0.999);
+        assertTrue(RegressionGate.mannWhitneyGreater(low, low) > 0.4);
+        assertEquals(1, RegressionGate.mannWhitneyGreater(new double[] { 3, 3 }, new double[] { 3, 3 }));
+        assertEquals(0.975, RegressionGate.normalCdf(1.959964), 1e-6);
+    }
+
+    @Test
+    void testGateFlagsOnlySignificantRegressions(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("baseline.csv");
+        List<Benchmark.Result> baseline = List.of(result("lk", 10, 0.2, 500), result("hk", 10, 0.2, 500));
+        RegressionGate.save(file, baseline, "--instances uniform --sizes 50", 2.0);
+        RegressionGate.Baseline loaded = RegressionGate.load(file);
+        assertEquals("--instances uniform --sizes 50", loaded.workload);
+
+        // Same machine speed: 10% slower is within tolerance, twice as slow is not
+        List<RegressionGate.Comparison> same = RegressionGate.compare(loaded,
+                List.of(result("lk", 11, 0.2, 500), result("hk", 20, 0.4, 500)), 2.0, 0.25);
+        assertFalse(same.get(0).regressed());
+        assertTrue(same.get(1).regressed());
+
+        // On a machine twice as slow, twice the latency is expected
+        List<RegressionGate.Comparison> slowMachine = RegressionGate.compare(loaded,
+                List.of(result("lk", 20, 0.4, 500), result("hk", 20, 0.4, 510)), 4.0, 0.25);
+        assertFalse(slowMachine.get(0).regressed());
+        assertTrue(slowMachine.get(1).problems.contains("worse tours"));
+
+        // Allocating 20% more than the baseline is over budget
+        if (AllocationProfiler.isSupported()) {
+            Benchmark.Result heavy = result("lk", 10, 0.2, 500);
+            Arrays.fill(heavy.allocatedBytes, 1200);
+            Path budget = dir.resolve("budget.csv");
+            Benchmark.Result base = result("lk", 10, 0.2, 500);
+            Arrays.fill(base.allocatedBytes, 1000);
+            RegressionGate.save(budget, List.of(base), "--instances uniform", 2.0);
+            List<RegressionGate.Comparison> over = RegressionGate.compare(RegressionGate.load(budget),
+                    List.of(heavy), 2.0, 0.25);
+            assertEquals(List.of("over allocation budget"), over.get(0).problems);
+        }
+
+        // Configurations missing on either side fail the gate
+        List<RegressionGate.Comparison> missing = RegressionGate.compare(loaded,
+                List.of(result("lk-polish", 10, 0.2, 500)), 2.0, 0.25);
+        assertEquals(3, missing.size());
+        assertTrue(missing.stream().allMatch(RegressionGate.Comparison::regressed));
+        assertTrue(RegressionGate.report(missing, 0.25).contains("3 of 3 configurations regressed"));
+    }
+}